@@ -0,0 +1,124 @@
+package bguspl.set;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * An implementation of the Util interface that builds candidate sets card by card. A partial selection is dropped as
+ * soon as one of its features is neither sameSame nor butDifferent, and the last card of a set is not searched for
+ * at all: it is the completion of the others (see Util::completeSet), so it only has to be looked up. Intended for
+ * FeatureSize > 3, where the combinations walk is too slow on full tables. Falls back to the combinations walk if the
+ * features do not fit in a packed card (see Util::packCard).
+ */
+public class BacktrackingUtil extends UtilImpl {
+
+    /**
+     * Per thread scratch space: the position of each card in the searched collection (-1 if not in it).
+     */
+    private final ThreadLocal<int[]> positionsScratch;
+
+    public BacktrackingUtil(Config config) {
+        super(config);
+        positionsScratch = ThreadLocal.withInitial(() -> {
+            int[] positions = new int[config.deckSize];
+            Arrays.fill(positions, -1);
+            return positions;
+        });
+    }
+
+    @Override
+    public List<int[]> findSets(List<Integer> deck, int count) {
+        if (config.featureCount * config.featureSize > 64) return super.findSets(deck, count);
+
+        LinkedList<int[]> sets = new LinkedList<>();
+        if (deck.size() < config.featureSize || count <= 0) return sets;
+
+        Search search = new Search(deck, count, sets);
+        try {
+            search.extend(0, 0, -1L, 0L);
+        } finally {
+            for (int card : search.cards)
+                search.positions[card] = -1;
+        }
+        return sets;
+    }
+
+    private class Search {
+
+        private final int[] cards;
+        private final long[] packedCards;
+        private final int[] positions;
+        private final int[] chosen;
+        private final int[] chosenPositions;
+        private final long laneMask = (1L << config.featureSize) - 1;
+        private final int count;
+        private final List<int[]> sets;
+
+        private Search(List<Integer> deck, int count, List<int[]> sets) {
+            this.count = count;
+            this.sets = sets;
+            cards = deck.stream().mapToInt(Integer::intValue).toArray();
+            packedCards = new long[cards.length];
+            positions = positionsScratch.get();
+            for (int i = 0; i < cards.length; ++i) {
+                packedCards[i] = packCard(cards[i]);
+                positions[cards[i]] = i;
+            }
+            chosen = new int[config.featureSize - 1];
+            chosenPositions = new int[config.featureSize - 1];
+        }
+
+        /**
+         * Extends the current partial selection with one more card.
+         *
+         * @param depth - the number of cards chosen so far.
+         * @param from  - the position of the first card that may be chosen next.
+         * @param and   - the bitwise AND of the packed cards chosen so far.
+         * @param or    - the bitwise OR of the packed cards chosen so far.
+         * @return - true iff count sets were found and the search should stop.
+         */
+        private boolean extend(int depth, int from, long and, long or) {
+            if (depth == chosen.length) {
+                int completion = completeSet(chosen);
+                if (completion >= 0 && positions[completion] > chosenPositions[depth - 1]) {
+                    int[] set = Arrays.copyOf(chosen, depth + 1);
+                    set[depth] = completion;
+                    Arrays.sort(set);
+                    sets.add(set);
+                    return sets.size() >= count;
+                }
+                return false;
+            }
+
+            // leave room for the remaining cards and the completion after them
+            for (int i = from; i < cards.length - (chosen.length - depth); ++i) {
+                long nextAnd = and & packedCards[i];
+                long nextOr = or | packedCards[i];
+                if (depth > 0 && !feasible(nextAnd, nextOr, depth + 1)) continue;
+
+                chosen[depth] = cards[i];
+                chosenPositions[depth] = i;
+                if (extend(depth + 1, i + 1, nextAnd, nextOr)) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Checks that every feature of a partial selection can still be sameSame or butDifferent.
+         *
+         * @param and  - the bitwise AND of the packed cards chosen.
+         * @param or   - the bitwise OR of the packed cards chosen.
+         * @param size - the number of cards chosen.
+         * @return - true iff every feature is the same in all the cards or different in all of them.
+         */
+        private boolean feasible(long and, long or, int size) {
+            for (int i = 0; i < config.featureCount; ++i) {
+                int shift = i * config.featureSize;
+                if (((and >>> shift) & laneMask) == 0 && Long.bitCount((or >>> shift) & laneMask) != size)
+                    return false;
+            }
+            return true;
+        }
+    }
+}
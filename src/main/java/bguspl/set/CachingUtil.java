@@ -0,0 +1,159 @@
+package bguspl.set;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * A Util decorator that memoizes the set analysis of card collections. The same collections (e.g. the cards on the
+ * table) recur constantly, so the sets found in each one are kept in a bounded cache with least recently used
+ * eviction, keyed by the sorted card ids of the collection.
+ */
+public class CachingUtil implements Util {
+
+    private final Util util;
+    private final Map<Key, Result> cache;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param util     - the util doing the actual work.
+     * @param capacity - the maximum number of card collections to keep results for.
+     */
+    public CachingUtil(Util util, int capacity) {
+        this.util = util;
+        cache = new LinkedHashMap<Key, Result>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Result> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * The sorted card ids of a card collection.
+     */
+    private static class Key {
+
+        private final int[] cards;
+        private final int hash;
+
+        private Key(List<Integer> deck) {
+            cards = deck.stream().mapToInt(Integer::intValue).sorted().toArray();
+            hash = Arrays.hashCode(cards);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(cards, ((Key) o).cards);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * The sets found in a card collection, and whether they are all of them.
+     */
+    private static class Result {
+
+        private final List<int[]> sets;
+        private final boolean complete;
+
+        private Result(List<int[]> sets, int count) {
+            this.sets = sets;
+            complete = sets.size() < count;
+        }
+    }
+
+    private synchronized Result lookup(Key key, int count) {
+        Result result = cache.get(key);
+        if (result != null && (result.complete || result.sets.size() >= count)) {
+            hits.incrementAndGet();
+            return result;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    private synchronized void store(Key key, Result result) {
+        Result old = cache.get(key);
+        if (old == null || old.sets.size() < result.sets.size() || result.complete)
+            cache.put(key, result);
+    }
+
+    /**
+     * @return - the number of lookups answered from the cache.
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * @return - the number of lookups that had to be computed.
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    @Override
+    public int[] cardToFeatures(int card) {
+        return util.cardToFeatures(card);
+    }
+
+    @Override
+    public int[][] cardsToFeatures(int[] cards) {
+        return util.cardsToFeatures(cards);
+    }
+
+    @Override
+    public boolean testSet(int[] cards) {
+        return util.testSet(cards);
+    }
+
+    @Override
+    public long packCard(int card) {
+        return util.packCard(card);
+    }
+
+    @Override
+    public boolean testPackedSet(long[] packedCards) {
+        return util.testPackedSet(packedCards);
+    }
+
+    @Override
+    public int completeSet(int[] cards) {
+        return util.completeSet(cards);
+    }
+
+    @Override
+    public List<int[]> findSets(List<Integer> deck, int count) {
+        Key key = new Key(deck);
+        Result result = lookup(key, count);
+        if (result == null) {
+            result = new Result(util.findSets(deck, count), count);
+            store(key, result);
+        }
+        return new LinkedList<>(result.sets.subList(0, Math.min(Math.max(count, 0), result.sets.size())));
+    }
+
+    /**
+     * Not cached: streams stay lazy (see Util::streamSets), so a stream consumer that stops early never pays for
+     * finding all the sets.
+     */
+    @Override
+    public Stream<int[]> streamSets(List<Integer> deck) {
+        return util.streamSets(deck);
+    }
+
+    @Override
+    public void spin() {
+        util.spin();
+    }
+}
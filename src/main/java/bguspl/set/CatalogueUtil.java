@@ -0,0 +1,73 @@
+package bguspl.set;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * An implementation of the Util interface that finds sets by looking them up in a precomputed SetCatalogue instead of
+ * searching for them. Every set is reached from its smallest card, so findSets only goes over the sets of the given
+ * cards and checks the rest of their cards are there. Falls back to the backtracking search if the catalogue could
+ * not be loaded.
+ */
+public class CatalogueUtil extends BacktrackingUtil {
+
+    private final SetCatalogue catalogue;
+
+    /**
+     * Per thread scratch space: a bitmap of the cards being searched.
+     */
+    private final ThreadLocal<long[]> presenceScratch;
+
+    public CatalogueUtil(Logger logger, Config config) {
+        super(config);
+        presenceScratch = ThreadLocal.withInitial(() -> new long[(config.deckSize + 63) / 64]);
+
+        SetCatalogue loaded = null;
+        try {
+            loaded = SetCatalogue.load(config, Paths.get(config.setCatalogueDirectory), new BacktrackingUtil(config));
+            logger.info("set catalogue loaded with " + loaded.setCount() + " sets.");
+        } catch (IOException | RuntimeException e) {
+            logger.severe("cannot load set catalogue from " + config.setCatalogueDirectory + ": " + e.getMessage());
+        }
+        catalogue = loaded;
+    }
+
+    @Override
+    public List<int[]> findSets(List<Integer> deck, int count) {
+        if (catalogue == null) return super.findSets(deck, count);
+
+        LinkedList<int[]> sets = new LinkedList<>();
+        long[] present = presenceScratch.get();
+        for (int card : deck)
+            present[card >>> 6] |= 1L << card;
+
+        try {
+            for (int card : deck) {
+                for (int i = 0, n = catalogue.setsOfCount(card); i < n; ++i) {
+                    int set = catalogue.setOf(card, i);
+                    if (catalogue.card(set, 0) != card) continue;
+
+                    boolean found = true;
+                    for (int j = 1; j < config.featureSize && found; ++j) {
+                        int other = catalogue.card(set, j);
+                        found = (present[other >>> 6] & (1L << other)) != 0;
+                    }
+                    if (found) {
+                        int[] cards = new int[config.featureSize];
+                        for (int j = 0; j < cards.length; ++j)
+                            cards[j] = catalogue.card(set, j);
+                        sets.add(cards);
+                        if (sets.size() >= count) return sets;
+                    }
+                }
+            }
+            return sets;
+        } finally {
+            for (int card : deck)
+                present[card >>> 6] = 0;
+        }
+    }
+}
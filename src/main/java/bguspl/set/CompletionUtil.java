@@ -0,0 +1,59 @@
+package bguspl.set;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * An implementation of the Util interface that finds sets by completing pairs of cards.
+ * When FeatureSize is 3, every pair of cards has exactly one card that completes it to a legal set, so instead of
+ * testing every triplet we compute that card and look it up in a presence bitmap. Other feature sizes fall back to the
+ * combinations walk of UtilImpl.
+ */
+public class CompletionUtil extends UtilImpl {
+
+    /**
+     * Per thread scratch space: the cards being searched and a bitmap of which cards are among them.
+     */
+    private final ThreadLocal<int[]> cardsScratch;
+    private final ThreadLocal<long[]> presenceScratch;
+
+    public CompletionUtil(Config config) {
+        super(config);
+        cardsScratch = ThreadLocal.withInitial(() -> new int[config.deckSize]);
+        presenceScratch = ThreadLocal.withInitial(() -> new long[(config.deckSize + 63) / 64]);
+    }
+
+    @Override
+    public List<int[]> findSets(List<Integer> deck, int count) {
+        if (config.featureSize != 3) return super.findSets(deck, count);
+
+        LinkedList<int[]> sets = new LinkedList<>();
+        int n = deck.size();
+        int[] cards = cardsScratch.get();
+        long[] present = presenceScratch.get();
+        for (int i = 0; i < n; ++i) {
+            cards[i] = deck.get(i);
+            present[cards[i] >>> 6] |= 1L << cards[i];
+        }
+
+        try {
+            for (int i = 0; i < n - 1; ++i) {
+                int first = cards[i];
+                for (int j = i + 1; j < n; ++j) {
+                    int second = cards[j];
+                    int third = thirdCard(first, second);
+
+                    // every set is reached from each of its 3 pairs, keep only the one where the third card is the largest
+                    if (third > first && third > second && (present[third >>> 6] & (1L << third)) != 0) {
+                        sets.add(first < second ? new int[]{first, second, third} : new int[]{second, first, third});
+                        if (sets.size() >= count) return sets;
+                    }
+                }
+            }
+            return sets;
+        } finally {
+            for (int i = 0; i < n; ++i)
+                present[cards[i] >>> 6] = 0;
+        }
+    }
+}
@@ -36,6 +36,54 @@ public class Config {
      */
     public final int deckSize;
 
+    /**
+     * The algorithm used by Util::findSets ("Combinations" walks every combination, "Completion" completes pairs of
+     * cards to a set and only applies to FeatureSize=3, "Parallel" splits the combinations walk across threads,
+     * "Backtracking" builds sets card by card and prunes impossible ones, for FeatureSize > 3, "Catalogue" looks sets
+     * up in a precomputed, memory mapped catalogue of all the sets in the deck)
+     */
+    public final String setFinder;
+
+    /**
+     * The directory the set catalogue files of the "Catalogue" set finder are kept in
+     */
+    public final String setCatalogueDirectory;
+
+    /**
+     * The number of threads used by the "Parallel" set finder (0 for the number of available processors)
+     */
+    public final int setFinderParallelism;
+
+    /**
+     * The number of threads verifying the claims of the players (0 for the number of available processors)
+     */
+    public final int verifierThreads;
+
+    /**
+     * What happens to a key press when the player's action queue is full ("DropNewest", "DropOldest" or "Coalesce")
+     */
+    public final String actionOverflowPolicy;
+
+    /**
+     * How players wait for the verdicts on their claims ("Spin", "SpinYield", "SpinPark" or "Park")
+     */
+    public final String verdictWaitStrategy;
+
+    /**
+     * The number of checks of a verdict before a SpinYield or SpinPark wait yields or parks
+     */
+    public final int verdictWaitSpins;
+
+    /**
+     * The number of card collections whose sets are kept in the set analysis cache (0 disables the cache)
+     */
+    public final int setCacheSize;
+
+    /**
+     * The maximum number of bytes the precomputed set lookup table may take (0 disables the table)
+     */
+    public final long lookupTableMaxBytes;
+
     /**
      * The number of human players in the game.
      */
@@ -61,6 +109,17 @@ public class Config {
      */
     public final long turnTimeoutMillis;
 
+    /**
+     * How the dealer chooses the cards dealt to the table ("Random" deals the top of the shuffled deck,
+     * "SetGuaranteed" makes sure the table holds a set whenever the deck allows it)
+     */
+    public final String dealingStrategy;
+
+    /**
+     * Whether the dealer reshuffles as soon as the table holds no set (instead of waiting for the turn timeout)
+     */
+    public final boolean reshuffleWhenNoSet;
+
     /**
      * The number of milliseconds the turn countdown warning should be displayed
      */
@@ -107,6 +166,16 @@ public class Config {
      */
     public final int tableSize;
 
+    /**
+     * The maximum number of extra slots the dealer may open beyond the table grid when the table holds no set
+     */
+    public final int extraSlots;
+
+    /**
+     * The maximum number of slots on the table (i.e. tableSize + extraSlots)
+     */
+    public final int tableCapacity;
+
     /**
      * The width (in pixels) of each cell
      */
@@ -148,6 +217,14 @@ public class Config {
             "81,87,69,82,65,83,68,70,90,88,67,86",
             "85,73,79,80,74,75,76,59,77,44,46,47"};
 
+    /**
+     * The default scan codes for the extra slots (the number keys: 1 to 6 and 7 to =), as many as config.extraSlots
+     * are appended to the defaults above
+     */
+    private static final String[] playerExtraKeysDefaults = {
+            "49,50,51,52,53,54",
+            "55,56,57,48,45,61"};
+
     /**
      * Attempts to read the config properties from the current working directory. Otherwise, tries to load them
      * as a resource.
@@ -198,6 +275,17 @@ public class Config {
         featureCount = Integer.parseInt(properties.getProperty("FeatureCount", "4"));
         deckSize = (int) Math.pow(featureSize, featureCount);
 
+        // performance settings
+        setFinder = properties.getProperty("SetFinder", "Combinations").trim();
+        setCatalogueDirectory = properties.getProperty("SetCatalogueDirectory", "./sets/").trim();
+        setFinderParallelism = Integer.parseInt(properties.getProperty("SetFinderParallelism", "0"));
+        verifierThreads = Integer.parseInt(properties.getProperty("VerifierThreads", "1"));
+        actionOverflowPolicy = properties.getProperty("ActionOverflowPolicy", "DropNewest").trim();
+        verdictWaitStrategy = properties.getProperty("VerdictWaitStrategy", "Park").trim();
+        verdictWaitSpins = Integer.parseInt(properties.getProperty("VerdictWaitSpins", "10000"));
+        setCacheSize = Integer.parseInt(properties.getProperty("SetCacheSize", "0"));
+        lookupTableMaxBytes = (long) (Double.parseDouble(properties.getProperty("LookupTableMaxMegabytes", "16")) * 1024.0 * 1024.0);
+
         // gameplay settings
         humanPlayers = Integer.parseInt(properties.getProperty("HumanPlayers", "2"));
         computerPlayers = Integer.parseInt(properties.getProperty("ComputerPlayers", "0"));
@@ -205,6 +293,8 @@ public class Config {
 
         hints = Boolean.parseBoolean(properties.getProperty("Hints", "False"));
         turnTimeoutMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutSeconds", "60")) * 1000.0);
+        dealingStrategy = properties.getProperty("DealingStrategy", "Random").trim();
+        reshuffleWhenNoSet = Boolean.parseBoolean(properties.getProperty("ReshuffleWhenNoSet", "False"));
         turnTimeoutWarningMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutWarningSeconds", "60")) * 1000.0);
         pointFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PointFreezeSeconds", "1")) * 1000.0);
         penaltyFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PenaltyFreezeSeconds", "3")) * 1000.0);
@@ -219,6 +309,8 @@ public class Config {
         rows = Integer.parseInt(properties.getProperty("Rows", "3"));
         columns = Integer.parseInt(properties.getProperty("Columns", "4"));
         tableSize = rows * columns;
+        extraSlots = Integer.parseInt(properties.getProperty("ExtraSlots", "0"));
+        tableCapacity = tableSize + extraSlots;
         cellWidth = Integer.parseInt(properties.getProperty("CellWidth", "258"));
         cellHeight = Integer.parseInt(properties.getProperty("CellHeight", "167"));
         playerCellWidth = Integer.parseInt(properties.getProperty("PlayerCellWidth", "300"));
@@ -226,21 +318,35 @@ public class Config {
         fontSize = Integer.parseInt(properties.getProperty("FontSize", "40"));
 
         // keyboard input data
-        playerKeys = new int[players][rows * columns];
+        playerKeys = new int[players][];
         for (int i = 0; i < players; i++) {
             String defaultCodes = "";
-            if (i < 2) defaultCodes = playerKeysDefaults[i];
+            if (i < 2) defaultCodes = playerKeysDefaults[i] + defaultExtraKeys(i);
             String playerKeysString = properties.getProperty("PlayerKeys" + (i + 1), defaultCodes);
+            playerKeys[i] = new int[tableSize];
             if (playerKeysString.length() > 0) {
                 String[] codes = playerKeysString.split(",");
-                if (codes.length != tableSize)
+                if (codes.length < tableSize || codes.length > tableCapacity)
                     logger.severe("warning: player " + (i + 1) + " keys (" + codes.length + ") mismatch table size (" + tableSize + ").");
-                for (int j = 0; j < Math.min(codes.length, tableSize); ++j) // parse the key codes string
+                if (codes.length > tableSize) // keys for the extra slots
+                    playerKeys[i] = new int[Math.min(codes.length, tableCapacity)];
+                for (int j = 0; j < playerKeys[i].length && j < codes.length; ++j) // parse the key codes string
                     playerKeys[i][j] = Integer.parseInt(codes[j]);
             }
+            if (i < humanPlayers && playerKeys[i].length < tableCapacity)
+                logger.severe("warning: player " + (i + 1) + " has keys for " + (playerKeys[i].length - tableSize)
+                        + " of " + extraSlots + " extra slots, the table will not grow beyond them.");
         }
     }
 
+    private String defaultExtraKeys(int player) {
+        String[] codes = playerExtraKeysDefaults[player].split(",");
+        StringBuilder keys = new StringBuilder();
+        for (int j = 0; j < extraSlots && j < codes.length; ++j)
+            keys.append(',').append(codes[j]);
+        return keys.toString();
+    }
+
     public int[] playerKeys(int player) {
         return playerKeys[player];
     }
@@ -9,6 +9,8 @@ import java.util.logging.Logger;
 
 /**
  * This class handles the input from the keyboard, translates it to table grid slots and dispatches accordingly.
+ * A player may have more keys than grid slots: the keys beyond the grid map to the extra slots (see
+ * Config::extraSlots), and presses on extra slots that are not open are ignored by the player (they hold no card).
  */
 class InputManager extends KeyAdapter {
 
@@ -22,7 +24,7 @@ class InputManager extends KeyAdapter {
         this.players = players;
         this.logger = logger;
 
-        // initialize the keys
+        // initialize the keys (the grid slots first, then any extra slots)
         for (int player = 0; player < config.players; ++player)
             for (int i = 0; i < config.playerKeys(player).length; i++) {
                 int keyCode = config.playerKeys(player)[i];
@@ -43,7 +43,7 @@ public class Main {
         logger = initLogger();
         ThreadLogger.logStart(logger, Thread.currentThread().getName());
         Config config = new Config(logger, "config.properties");
-        Util util = new UtilImpl(config);
+        Util util = createUtil(config);
 
         Player[] players = new Player[config.players];
         UserInterface ui = null;
@@ -77,12 +77,37 @@ public class Main {
         } finally {
             logger.severe("thanks for playing... it was fun!");
             System.out.println("Thanks for playing... it was fun!");
+            if (util instanceof CachingUtil)
+                logger.info("set cache hits: " + ((CachingUtil) util).hits() + " misses: " + ((CachingUtil) util).misses());
             ThreadLogger.logStop(logger, Thread.currentThread().getName());
             if (!xButtonPressed) env.ui.dispose();
             for (Handler h : logger.getHandlers()) h.flush();
         }
     }
 
+    private static Util createUtil(Config config) {
+        Util util = createSetFinder(config);
+        return config.setCacheSize > 0 ? new CachingUtil(util, config.setCacheSize) : util;
+    }
+
+    private static Util createSetFinder(Config config) {
+        switch (config.setFinder) {
+            case "Completion":
+                return new CompletionUtil(config);
+            case "Parallel":
+                return new ParallelUtil(config);
+            case "Backtracking":
+                return new BacktrackingUtil(config);
+            case "Catalogue":
+                return new CatalogueUtil(logger, config);
+            case "Combinations":
+                return new UtilImpl(config);
+            default:
+                logger.severe("unknown set finder " + config.setFinder + ", using Combinations.");
+                return new UtilImpl(config);
+        }
+    }
+
     private static Logger initLogger() {
 
         //just to make our log file nicer :)
@@ -0,0 +1,97 @@
+package bguspl.set;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An implementation of the Util interface that splits the combinations walk of findSets across a ForkJoinPool.
+ * The combination space is partitioned by the first card of each combination, and the search stops early once count
+ * sets were found.
+ */
+public class ParallelUtil extends UtilImpl {
+
+    private final ForkJoinPool pool;
+
+    public ParallelUtil(Config config) {
+        super(config);
+        int parallelism = config.setFinderParallelism > 0 ? config.setFinderParallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @Override
+    public List<int[]> findSets(List<Integer> deck, int count) {
+        LinkedList<int[]> sets = new LinkedList<>();
+        int[] cards = deck.stream().mapToInt(Integer::intValue).toArray();
+        int r = config.featureSize;
+        if (cards.length < r || count <= 0) return sets;
+
+        Queue<int[]> found = new ConcurrentLinkedQueue<>();
+        pool.invoke(new Search(cards, 0, cards.length - r + 1, found, new AtomicInteger(count)));
+        sets.addAll(found);
+        return sets;
+    }
+
+    /**
+     * Searches all combinations whose first card index is in [from, to).
+     */
+    private class Search extends RecursiveAction {
+
+        private final int[] cards;
+        private final int from;
+        private final int to;
+        private final Queue<int[]> found;
+        private final AtomicInteger remaining;
+
+        private Search(int[] cards, int from, int to, Queue<int[]> found, AtomicInteger remaining) {
+            this.cards = cards;
+            this.from = from;
+            this.to = to;
+            this.found = found;
+            this.remaining = remaining;
+        }
+
+        @Override
+        protected void compute() {
+            if (remaining.get() <= 0) return;
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Search(cards, from, middle, found, remaining), new Search(cards, middle, to, found, remaining));
+            } else {
+                searchFrom(from);
+            }
+        }
+
+        private void searchFrom(int first) {
+            int n = cards.length;
+            int r = config.featureSize;
+            int[] combination = new int[r];
+            int[] set = new int[r];
+            for (int i = 0; i < r; ++i)
+                combination[i] = first + i;
+
+            while (combination[0] == first && combination[r - 1] < n) {
+                if (remaining.get() <= 0) return;
+                for (int i = 0; i < r; ++i)
+                    set[i] = cards[combination[i]];
+                if (testSet(set)) {
+                    if (remaining.getAndDecrement() <= 0) return;
+                    int[] sorted = set.clone();
+                    Arrays.sort(sorted);
+                    found.add(sorted);
+                }
+
+                // generate next combination in lexicographic order
+                int t = r - 1;
+                while (t != 0 && combination[t] == n - r + t) --t;
+                combination[t]++;
+                for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package bguspl.set;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * A read only catalogue of every legal set in the deck, with a per card index of the sets containing it.
+ * The catalogue is generated once for a given FeatureCount/FeatureSize, stored in a binary file and memory mapped,
+ * so game instances and restarts share it without recomputing it.
+ * <p>
+ * File layout (big endian ints): magic, version, featureCount, featureSize, setCount, then the sets (featureSize
+ * sorted card ids each), then deckSize + 1 offsets into the per card index, then the per card index (set numbers).
+ */
+public class SetCatalogue {
+
+    private static final int MAGIC = 0x53455443; // "SETC"
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 5;
+
+    private final IntBuffer data;
+    private final int featureSize;
+    private final int setCount;
+    private final int offsetsStart;
+    private final int indexStart;
+
+    private SetCatalogue(IntBuffer data, Config config) {
+        this.data = data;
+        featureSize = config.featureSize;
+        setCount = data.get(4);
+        offsetsStart = HEADER_INTS + setCount * featureSize;
+        indexStart = offsetsStart + config.deckSize + 1;
+    }
+
+    /**
+     * Maps the catalogue file of the configured deck, generating it first if it does not exist (or is invalid).
+     *
+     * @param config    - the game configuration.
+     * @param directory - the directory the catalogue files are kept in.
+     * @param finder    - the util used to find the sets when generating the catalogue.
+     * @return - the mapped catalogue.
+     * @throws IOException - if the catalogue file could not be read or written.
+     */
+    public static SetCatalogue load(Config config, Path directory, Util finder) throws IOException {
+        Path file = directory.resolve("sets-" + config.featureCount + "x" + config.featureSize + ".bin");
+        if (!isValid(file, config))
+            generate(file, config, finder);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            IntBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).asIntBuffer();
+            return new SetCatalogue(data, config);
+        }
+    }
+
+    private static boolean isValid(Path file, Config config) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) < HEADER_INTS * Integer.BYTES) return false;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_INTS * Integer.BYTES);
+            while (header.hasRemaining())
+                if (channel.read(header) < 0) return false;
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION || header.getInt() != config.featureCount
+                    || header.getInt() != config.featureSize) return false;
+            long setCount = header.getInt();
+            long ints = HEADER_INTS + 2 * setCount * config.featureSize + config.deckSize + 1;
+            return channel.size() == ints * Integer.BYTES;
+        }
+    }
+
+    private static void generate(Path file, Config config, Util finder) throws IOException {
+        List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+        List<int[]> sets = finder.findSets(deck, Integer.MAX_VALUE);
+        int k = config.featureSize;
+
+        // count the sets of every card to lay out the per card index
+        int[] offsets = new int[config.deckSize + 1];
+        for (int[] set : sets)
+            for (int card : set)
+                offsets[card + 1]++;
+        for (int card = 0; card < config.deckSize; card++)
+            offsets[card + 1] += offsets[card];
+
+        int[] index = new int[sets.size() * k];
+        int[] next = new int[config.deckSize];
+        System.arraycopy(offsets, 0, next, 0, config.deckSize);
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = (long) (HEADER_INTS + 2 * sets.size() * k + config.deckSize + 1) * Integer.BYTES;
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(config.featureCount).putInt(config.featureSize).putInt(sets.size());
+            int setNumber = 0;
+            for (int[] set : sets) {
+                for (int card : set) {
+                    buffer.putInt(card);
+                    index[next[card]++] = setNumber;
+                }
+                setNumber++;
+            }
+            for (int offset : offsets)
+                buffer.putInt(offset);
+            for (int set : index)
+                buffer.putInt(set);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        // another instance may have generated the same catalogue meanwhile, both files are identical
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return - the number of legal sets in the deck.
+     */
+    public int setCount() {
+        return setCount;
+    }
+
+    /**
+     * @param set - the set number.
+     * @param i   - the position of the card in the set (the cards of a set are sorted).
+     * @return - the card id.
+     */
+    public int card(int set, int i) {
+        return data.get(HEADER_INTS + set * featureSize + i);
+    }
+
+    /**
+     * @param card - the card id.
+     * @return - the number of legal sets the card takes part in.
+     */
+    public int setsOfCount(int card) {
+        return data.get(offsetsStart + card + 1) - data.get(offsetsStart + card);
+    }
+
+    /**
+     * @param card - the card id.
+     * @param i    - the index among the sets of the card.
+     * @return - the number of the i-th set the card takes part in.
+     */
+    public int setOf(int card, int i) {
+        return data.get(indexStart + data.get(offsetsStart + card) + i);
+    }
+}
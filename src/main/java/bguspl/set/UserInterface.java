@@ -18,6 +18,13 @@ public interface UserInterface {
      */
     void removeCard(int slot);
 
+    /**
+     * Set the number of open slots on the table: the grid slots plus the extra slots currently open
+     * (at most config.tableCapacity). Slots from this number on are hidden.
+     * @param slots - the number of open slots.
+     */
+    void setOpenSlots(int slots);
+
     /**
      * Draw a player name text in the specified slot.
      * @param player - the card id.
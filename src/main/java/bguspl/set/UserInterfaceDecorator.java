@@ -33,6 +33,13 @@ public class UserInterfaceDecorator implements UserInterface {
         if (ui != null) ui.removeCard(slot);
     }
 
+    @Override
+    public void setOpenSlots(int slots) {
+        logger.severe("setting open slots to " + slots);
+        util.spin();
+        if (ui != null) ui.setOpenSlots(slots);
+    }
+
     @Override
     public void placeToken(int player, int slot) {
         logger.severe("player " + (player + 1) + " placing token on slot " + slot);
@@ -108,6 +108,12 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         private final boolean[][][] playerTokens;
         private final JLabel[][] tokenText;
 
+        /**
+         * The rows of the grid followed by the rows for the extra slots, and the number of slots currently open.
+         */
+        private final int rows;
+        private int openSlots;
+
         private Image loadImageResource(String filename) {
             URL imageResource = getClass().getClassLoader().getResource(filename);
             if (imageResource == null)
@@ -117,7 +123,9 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
 
         private GamePanel() {
 
-            setPreferredSize(new Dimension(config.columns * config.cellWidth, config.rows * config.cellHeight));
+            rows = (config.tableCapacity + config.columns - 1) / config.columns;
+            openSlots = config.tableSize;
+            setPreferredSize(new Dimension(config.columns * config.cellWidth, rows * config.cellHeight));
 
             // init deck and load all pictures from png files
             assert config.featureSize < 10; // otherwise there will be naming conflicts
@@ -128,10 +136,10 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
                 deck[i] = loadImageResource("cards/" + intInBaseToPaddedString(i, config.featureCount, config.featureSize) + ".png");
             emptyCard = loadImageResource("cards/empty_card.png");
 
-            grid = new Image[config.rows][config.columns];
-            tokenText = new JLabel[config.rows][config.columns];
-            playerTokens = new boolean[config.players][config.rows][config.columns];
-            for (int row = 0; row < config.rows; row++) {
+            grid = new Image[rows][config.columns];
+            tokenText = new JLabel[rows][config.columns];
+            playerTokens = new boolean[config.players][rows][config.columns];
+            for (int row = 0; row < rows; row++) {
                 for (int column = 0; column < config.columns; column++) {
                     // init the cards on the table grid as empty cards
                     grid[row][column] = emptyCard;
@@ -143,6 +151,7 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
                     tokenText[row][column].setOpaque(false);
                     tokenText[row][column].setBorder(BorderFactory.createLineBorder(Color.black));
                     tokenText[row][column].setBounds((column * config.cellWidth), (row * config.cellHeight), config.cellWidth, config.cellHeight);
+                    tokenText[row][column].setVisible(row * config.columns + column < openSlots);
                     add(tokenText[row][column]);
                 }
             }
@@ -171,8 +180,16 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
             tokenText[row][column].setText(generatePlayersTokenText(row, column));
         }
 
+        private void setOpenSlots(int slots) {
+            openSlots = slots;
+            for (int slot = config.tableSize; slot < config.tableCapacity; slot++)
+                tokenText[slot / config.columns][slot % config.columns].setVisible(slot < openSlots);
+            validate();
+            repaint();
+        }
+
         private void removeTokens() {
-            for (int i = 0; i < config.tableSize; i++)
+            for (int i = 0; i < config.tableCapacity; i++)
                 removeTokens(i);
         }
 
@@ -206,9 +223,11 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         @Override
         public void paintComponent(Graphics g) {
             // draw card images
-            for (int row = 0; row < config.rows; row++)
-                for (int column = 0; column < config.columns; column++)
-                    g.drawImage(grid[row][column], (column * config.cellWidth), (row * config.cellHeight), this);
+            for (int slot = 0; slot < openSlots; slot++) {
+                int row = slot / config.columns;
+                int column = slot % config.columns;
+                g.drawImage(grid[row][column], (column * config.cellWidth), (row * config.cellHeight), this);
+            }
         }
     }
 
@@ -284,6 +303,11 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         gamePanel.removeCard(slot);
     }
 
+    @Override
+    public void setOpenSlots(int slots) {
+        gamePanel.setOpenSlots(slots);
+    }
+
     @Override
     public void placeToken(int player, int slot) {
         gamePanel.placeToken(player, slot);
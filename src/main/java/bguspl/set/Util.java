@@ -1,6 +1,7 @@
 package bguspl.set;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * An interface for general utilities provided for convenience.
@@ -31,6 +32,32 @@ public interface Util {
      */
     boolean testSet(int[] cards);
 
+    /**
+     * Converts a card id to a packed representation of its features that can be tested with testPackedSet.
+     * When config.featureCount * config.featureSize <= 64 each feature gets a lane of config.featureSize bits with
+     * only the bit of its value set, otherwise the card id itself is returned.
+     *
+     * @param card - the card id.
+     * @return - the packed card.
+     */
+    long packCard(int card);
+
+    /**
+     * Checks if an array of packed cards (see packCard method) forms a legal set, without decoding any features.
+     *
+     * @param packedCards - the array of packed cards.
+     * @return - true iff the array forms a legal set.
+     */
+    boolean testPackedSet(long[] packedCards);
+
+    /**
+     * Finds the card that completes an array of cards to a legal set.
+     *
+     * @param cards - an array of config.featureSize - 1 card ids.
+     * @return - the id of the only card that forms a legal set with the given cards, or -1 if there is none.
+     */
+    int completeSet(int[] cards);
+
     /**
      * Finds and returns up to count sets in the given collection of cards.
      *
@@ -40,6 +67,16 @@ public interface Util {
      */
     List<int[]> findSets(List<Integer> deck, int count);
 
+    /**
+     * Lazily generates the sets in the given collection of cards. Sets are only searched for as the stream is
+     * consumed, so short-circuiting operations (e.g. findAny, limit) stop the search early. The stream supports
+     * parallel processing.
+     *
+     * @param deck - a collection of cards (may not include null objects). The collection is copied when called.
+     * @return - a stream of integer arrays, each one contains the sorted card ids of a legal set.
+     */
+    Stream<int[]> streamSets(List<Integer> deck);
+
     /**
      * Spin a random number of times (for debugging/testing).
      */
@@ -3,18 +3,92 @@ package bguspl.set;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Spliterator;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * The implementation of the UserInterface interface.
  */
 public class UtilImpl implements Util {
 
-    private final Config config;
+    protected final Config config;
+
+    /**
+     * Lookup table of the card completing each pair of cards to a set: third[first * deckSize + second]
+     * (null if FeatureSize is not 3 or the table does not fit in config.lookupTableMaxBytes).
+     */
+    private final short[] third;
+
+    /**
+     * The packed representation of every card (null if the features do not fit in a long, see packCard).
+     */
+    private final long[] packed;
+
+    /**
+     * The lowest bit of every feature lane, and all the bits of all lanes, of a packed card.
+     */
+    private final long laneLowBits;
+    private final long laneBits;
 
     public UtilImpl(Config config) {
         this.config = config;
+        third = createLookupTable();
+
+        long lowBits = 0;
+        for (int i = 0; i < config.featureCount; ++i)
+            lowBits |= 1L << (i * config.featureSize);
+        laneLowBits = lowBits;
+        laneBits = lowBits * ((1L << config.featureSize) - 1);
+        packed = config.featureCount * config.featureSize <= 64 ? createPackedCards() : null;
+    }
+
+    private long[] createPackedCards() {
+        long[] cards = new long[config.deckSize];
+        int[] features = new int[config.featureCount];
+        for (int card = 0; card < config.deckSize; ++card) {
+            cardToFeatures(card, features);
+            for (int i = 0; i < config.featureCount; ++i)
+                cards[card] |= 1L << (i * config.featureSize + features[i]);
+        }
+        return cards;
+    }
+
+    private short[] createLookupTable() {
+        long bytes = (long) config.deckSize * config.deckSize * Short.BYTES;
+        if (config.featureSize != 3 || config.deckSize > Short.MAX_VALUE || bytes > config.lookupTableMaxBytes)
+            return null;
+
+        short[] table = new short[config.deckSize * config.deckSize];
+        for (int first = 0; first < config.deckSize; ++first)
+            for (int second = 0; second < config.deckSize; ++second)
+                table[first * config.deckSize + second] = (short) computeThirdCard(first, second);
+        return table;
+    }
+
+    private int computeThirdCard(int first, int second) {
+        int third = 0;
+        for (int i = 0, weight = 1; i < config.featureCount; ++i, weight *= 3) {
+            third += (6 - first % 3 - second % 3) % 3 * weight;
+            first /= 3;
+            second /= 3;
+        }
+        return third;
+    }
+
+    /**
+     * Computes the card that completes two cards to a legal set (only valid when FeatureSize is 3).
+     *
+     * @param first  - the first card id.
+     * @param second - the second card id.
+     * @return - the id of the only card that forms a legal set with first and second.
+     */
+    protected int thirdCard(int first, int second) {
+        return third != null ? third[first * config.deckSize + second] : computeThirdCard(first, second);
     }
 
     private void cardToFeatures(int card, int[] features) {
@@ -38,8 +112,73 @@ public class UtilImpl implements Util {
         return features;
     }
 
+    @Override
+    public long packCard(int card) {
+        return packed != null ? packed[card] : card;
+    }
+
+    @Override
+    public boolean testPackedSet(long[] packedCards) {
+        if (packed == null || packedCards.length != config.featureSize) {
+            int[] cards = new int[packedCards.length];
+            for (int i = 0; i < cards.length; ++i)
+                cards[i] = packed == null ? (int) packedCards[i] : cardOf(packedCards[i]);
+            return testFeatures(cards);
+        }
+
+        long and = -1L, or = 0L;
+        for (long card : packedCards) {
+            and &= card;
+            or |= card;
+        }
+        return testPacked(and, or);
+    }
+
+    /**
+     * Tests all the features of packed cards at once (SIMD within a register). Since every lane of a packed card has
+     * exactly one bit set, a feature is sameSame iff its lane in the AND of the cards is non-zero, and (with
+     * config.featureSize cards) butDifferent iff its lane in the OR of the cards is full.
+     *
+     * @param and - the bitwise AND of the packed cards.
+     * @param or  - the bitwise OR of the packed cards.
+     * @return - true iff every feature is either sameSame or butDifferent.
+     */
+    private boolean testPacked(long and, long or) {
+        long notFull = ~or & laneBits;
+        long sameSame = 0L, notButDifferent = 0L;
+        for (int shift = 0; shift < config.featureSize; ++shift) { // fold every lane into its lowest bit
+            sameSame |= and >>> shift;
+            notButDifferent |= notFull >>> shift;
+        }
+        return (~sameSame & notButDifferent & laneLowBits) == 0L;
+    }
+
+    private int cardOf(long packedCard) {
+        int card = 0;
+        for (int i = 0; i < config.featureCount; ++i) {
+            long lane = (packedCard >>> (i * config.featureSize)) & ((1L << config.featureSize) - 1);
+            card = card * config.featureSize + Long.numberOfTrailingZeros(lane);
+        }
+        return card;
+    }
+
     @Override
     public boolean testSet(int[] cards) {
+        if (third != null && cards.length == 3)
+            return third[cards[0] * config.deckSize + cards[1]] == cards[2];
+
+        if (packed != null && cards.length == config.featureSize) {
+            long and = -1L, or = 0L;
+            for (int card : cards) {
+                and &= packed[card];
+                or |= packed[card];
+            }
+            return testPacked(and, or);
+        }
+        return testFeatures(cards);
+    }
+
+    private boolean testFeatures(int[] cards) {
         int[][] features = cardsToFeatures(Arrays.copyOf(cards, cards.length));
         for (int i = 0; i < config.featureCount; ++i) {
             boolean sameSame = true, butDifferent = true;
@@ -64,30 +203,104 @@ public class UtilImpl implements Util {
         return true;
     }
 
+    @Override
+    public int completeSet(int[] cards) {
+        if (third != null && cards.length == 2)
+            return third[cards[0] * config.deckSize + cards[1]];
+
+        int allValues = (1 << config.featureSize) - 1;
+        int completion = 0;
+        for (int i = config.featureCount - 1, weight = 1; i >= 0; --i, weight *= config.featureSize) {
+            int seen = 0;
+            for (int card : cards)
+                seen |= 1 << (card / weight % config.featureSize);
+
+            int count = Integer.bitCount(seen);
+            if (count == 1) // sameSame: the missing card has the same value
+                completion += Integer.numberOfTrailingZeros(seen) * weight;
+            else if (count == cards.length) // butDifferent: the missing card has the only value not seen
+                completion += Integer.numberOfTrailingZeros(allValues & ~seen) * weight;
+            else
+                return -1;
+        }
+        return completion;
+    }
+
     @Override
     public List<int[]> findSets(List<Integer> deck, int count) {
-        LinkedList<int[]> sets = new LinkedList<>();
-        int n = deck.size();
-        int r = config.featureSize;
-        int[] combination = new int[r];
-
-        for (int i = 0; i < r; ++i)
-            combination[i] = i;
-
-        while (combination[r - 1] < deck.size()) {
-            int[] cards = Arrays.stream(combination).map(deck::get).sorted().toArray();
-            if (testSet(cards)) {
-                sets.add(cards);
-                if (sets.size() >= count) return sets;
+        return streamSets(deck).limit(Math.max(count, 0)).collect(Collectors.toCollection(LinkedList::new));
+    }
+
+    @Override
+    public Stream<int[]> streamSets(List<Integer> deck) {
+        int[] cards = deck.stream().mapToInt(Integer::intValue).toArray();
+        return StreamSupport.stream(new SetSpliterator(cards, 0, cards.length - config.featureSize + 1), false);
+    }
+
+    /**
+     * Walks the combinations of config.featureSize cards in lexicographic order, yielding the legal sets. Each
+     * spliterator covers the combinations whose first card index is in [from, to), and splits that range in two.
+     */
+    private class SetSpliterator implements Spliterator<int[]> {
+
+        private final int[] cards;
+        private final int[] combination;
+        private int to;
+
+        private SetSpliterator(int[] cards, int from, int to) {
+            this.cards = cards;
+            this.to = to;
+            combination = new int[config.featureSize];
+            for (int i = 0; i < combination.length; ++i)
+                combination[i] = from + i;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super int[]> action) {
+            int n = cards.length;
+            int r = combination.length;
+            while (combination[0] < to && combination[r - 1] < n) {
+                int[] set = new int[r];
+                for (int i = 0; i < r; ++i)
+                    set[i] = cards[combination[i]];
+
+                // generate next combination in lexicographic order
+                int t = r - 1;
+                while (t != 0 && combination[t] == n - r + t) --t;
+                combination[t]++;
+                for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
+
+                if (testSet(set)) {
+                    Arrays.sort(set);
+                    action.accept(set);
+                    return true;
+                }
             }
+            return false;
+        }
+
+        @Override
+        public Spliterator<int[]> trySplit() {
+            int from = combination[0];
+            if (to - from < 2 || combination[combination.length - 1] >= cards.length) return null;
+            // an ORDERED spliterator hands out its prefix: the split continues from the current combination
+            int middle = (from + to) >>> 1;
+            SetSpliterator prefix = new SetSpliterator(cards, from, middle);
+            System.arraycopy(combination, 0, prefix.combination, 0, combination.length);
+            for (int i = 0; i < combination.length; ++i)
+                combination[i] = middle + i;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
 
-            // generate next combination in lexicographic order
-            int t = r - 1;
-            while (t != 0 && combination[t] == n - r + t) --t;
-            combination[t]++;
-            for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | NONNULL;
         }
-        return sets;
     }
 
     public void spin() {
@@ -0,0 +1,34 @@
+package bguspl.set.ex;
+
+/**
+ * A claim of a player that its tokens form a legal set, as read from the table by a verifier.
+ */
+final class Claim {
+
+    /**
+     * The id of the claiming player.
+     */
+    final int player;
+
+    /**
+     * The number of the claim among the claims of the player (see Player::awaitsVerdict).
+     */
+    final long number;
+
+    /**
+     * The cards the player's tokens were on when the claim was verified.
+     */
+    final int[] cards;
+
+    /**
+     * The time the player completed the set (System::nanoTime). Overlapping claims are resolved in this order.
+     */
+    final long submitted;
+
+    Claim(int player, long number, int[] cards, long submitted) {
+        this.player = player;
+        this.number = number;
+        this.cards = cards;
+        this.submitted = submitted;
+    }
+}
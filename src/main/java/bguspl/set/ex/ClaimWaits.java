@@ -0,0 +1,46 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per player statistics of the time players wait for verdicts: from the moment a player completes a set to the
+ * moment the verdict on it is delivered. Used to check that claims are served fairly under contention.
+ */
+class ClaimWaits {
+
+    private final long[] count;
+    private final long[] totalNanos;
+    private final long[] maxNanos;
+
+    /**
+     * @param players - the number of players.
+     */
+    ClaimWaits(int players) {
+        count = new long[players];
+        totalNanos = new long[players];
+        maxNanos = new long[players];
+    }
+
+    /**
+     * Records the wait of a player for a verdict.
+     *
+     * @param player - the player id.
+     * @param nanos  - the time from the submission of the claim to the verdict.
+     */
+    synchronized void record(int player, long nanos) {
+        count[player]++;
+        totalNanos[player] += nanos;
+        maxNanos[player] = Math.max(maxNanos[player], nanos);
+    }
+
+    /**
+     * @param player - the player id.
+     * @return - the number of verdicts, and the mean and longest waits for them, as text.
+     */
+    synchronized String summary(int player) {
+        double mean = count[player] == 0 ? 0 : (double) totalNanos[player] / count[player];
+        return count[player] + " verdicts, mean wait " + String.format("%.3f", mean / TimeUnit.MILLISECONDS.toNanos(1))
+                + " ms, longest wait " + String.format("%.3f", (double) maxNanos[player] / TimeUnit.MILLISECONDS.toNanos(1))
+                + " ms";
+    }
+}
@@ -2,15 +2,16 @@ package bguspl.set.ex;
 
 import bguspl.set.Env;
 
-import java.util.Set;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * This class manages the dealer's threads and data
@@ -29,9 +30,30 @@ public class Dealer implements Runnable {
     private final Player[] players;
 
     /**
-     * The list of card ids that are left in the dealer's deck.
+     * The card ids that are left in the dealer's deck.
      */
-    private final List<Integer> deck;
+    private final Deck deck;
+
+    /**
+     * Tracks whether a legal set can still be formed from the cards left in the deck and on the table.
+     */
+    private final SetOracle oracle;
+
+    /**
+     * The random order in which slots are filled and cleared (reused on every call).
+     */
+    private final SlotOrder slotOrder;
+
+    /**
+     * Decides which cards of the deck are dealt to the table.
+     */
+    private final DealingStrategy dealing;
+
+    /**
+     * The number of slots the table may grow to: config.tableCapacity, or less if a human player has no keys for
+     * some of the extra slots.
+     */
+    private final int reachableSlots;
 
     /**
      * True iff game should be terminated.
@@ -47,21 +69,115 @@ public class Dealer implements Runnable {
     Thread[] playersThreads;
     Thread dealerThread;
     protected volatile boolean allFreeze;
-    public BlockingQueue<Integer> dealerQueue;
+
+    /**
+     * The claims found to be legal sets by the verifiers, waiting for the dealer to remove their cards.
+     */
+    final BlockingQueue<Claim> dealerQueue;
     public Integer win = 1;
     public Integer loose = -1;
 
+    /**
+     * The worker threads that read the cards of submitted claims and test them (see config.verifierThreads).
+     */
+    private final ExecutorService verifiers;
+
+    /**
+     * The submission time of the claim of each player that is being verified (Long.MAX_VALUE if none, Long.MIN_VALUE
+     * while it is being stamped). Legal claims wait for the verification of all the claims submitted before them, so
+     * the first set completed always wins.
+     */
+    private final AtomicLongArray verifying;
+
+    private static final Comparator<Claim> BY_SUBMISSION = Comparator.comparingLong(claim -> claim.submitted);
+
+    /**
+     * The claims drained from the dealer queue and not applied yet, in submission order. Dealer thread only.
+     */
+    private final List<Claim> claimBatch;
+
+    /**
+     * The time players wait for the verdicts on their claims.
+     */
+    private final ClaimWaits claimWaits;
+
+    /**
+     * Per player state of the current batch: the verdict of the player's claim (null if none), and whether tokens
+     * of the player were removed with an accepted set.
+     */
+    private final Integer[] claimVerdicts;
+    private final boolean[] tokensTaken;
+
+    /**
+     * Scratch space for the cards and slots of a batch of table operations (see Table::placeCards), and the target
+     * slots of cards moved between slots. Dealer thread only.
+     */
+    private final int[] batchCards;
+    private final int[] batchSlots;
+    private final int[] batchTargets;
+
+    /**
+     * Claim batch metrics: the number of batches, the number of legal claims in them and the largest batch.
+     */
+    private long claimBatches;
+    private long claimsVerified;
+    private int largestClaimBatch;
+
     public Dealer(Env env, Table table, Player[] players) {
         this.env = env;
         this.table = table;
         this.players = players;
-        deck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
+        deck = new Deck(env.config.deckSize);
+        oracle = new SetOracle(env, deck.asList());
+        slotOrder = new SlotOrder(env.config.tableSize);
+        dealing = createDealingStrategy();
+        reachableSlots = reachableSlots();
         playersThreads = new Thread[players.length];
-        dealerQueue = new ArrayBlockingQueue<>(players.length, true);
+        dealerQueue = new LinkedBlockingQueue<>();
+        verifiers = createVerifiers();
+        verifying = new AtomicLongArray(players.length);
+        for (int i = 0; i < players.length; i++)
+            verifying.set(i, Long.MAX_VALUE);
+        claimBatch = new ArrayList<>(players.length);
+        claimWaits = new ClaimWaits(players.length);
+        claimVerdicts = new Integer[players.length];
+        tokensTaken = new boolean[players.length];
+        batchCards = new int[env.config.tableCapacity];
+        batchSlots = new int[env.config.tableCapacity];
+        batchTargets = new int[env.config.tableCapacity];
         terminate = false;
         allFreeze = false;
     }
 
+    private DealingStrategy createDealingStrategy() {
+        switch (env.config.dealingStrategy) {
+            case "SetGuaranteed":
+                return new SetGuaranteedDealing(env);
+            case "Random":
+                return new RandomDealing();
+            default:
+                env.logger.severe("unknown dealing strategy " + env.config.dealingStrategy + ", using Random.");
+                return new RandomDealing();
+        }
+    }
+
+    private int reachableSlots() {
+        int slots = env.config.tableCapacity;
+        for (int player = 0; player < env.config.humanPlayers && player < players.length; player++)
+            slots = Math.min(slots, Math.max(env.config.tableSize, env.config.playerKeys(player).length));
+        return slots;
+    }
+
+    private ExecutorService createVerifiers() {
+        int threads = env.config.verifierThreads > 0 ? env.config.verifierThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "verifier-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
     /**
      * The dealer thread starts here (main loop for the dealer thread).
      */
@@ -74,7 +190,7 @@ public class Dealer implements Runnable {
         }
         dealerThread = Thread.currentThread();
         while (!shouldFinish()) {
-            Collections.shuffle(deck);
+            deck.shuffle();
             placeCardsOnTable();
             reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis;
             updateTimerDisplay(false);
@@ -83,15 +199,25 @@ public class Dealer implements Runnable {
             removeAllCardsFromTable();
         }
         if (!terminate) terminate();
+        verifiers.shutdownNow();
         announceWinners();
+        env.logger.info("applied " + claimsVerified + " legal claims in " + claimBatches + " batches (largest batch: "
+                + largestClaimBatch + ").");
+        for (Player player : players)
+            env.logger.info("player " + player.id + " claims: " + claimWaits.summary(player.id) + ".");
         env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
     }
 
     /**
      * The inner loop of the dealer thread that runs as long as the countdown did not time out.
      */
-    private void timerLoop() {
+    void timerLoop() {
         while (!terminate && System.currentTimeMillis() < reshuffleTime) {
+            expandTable();
+            if (env.config.reshuffleWhenNoSet && isTableDead()) {
+                env.logger.info("no set on the table, reshuffling.");
+                break;
+            }
             sleepUntilWokenOrTimeout();
             updateTimerDisplay(false);
             removeCardsFromTable();
@@ -99,10 +225,20 @@ public class Dealer implements Runnable {
         }
     }
 
+    /**
+     * Checks if the table holds no legal set and no more cards can be dealt to it (read from the table's set index).
+     *
+     * @return - true iff waiting for the turn timeout cannot change the table.
+     */
+    boolean isTableDead() {
+        return !table.anySet() && (table.emptySlots() == 0 || deck.isEmpty());
+    }
+
     private void betweenLoops() {
-        for (Integer id : dealerQueue) {
-            dealerQueue.remove(id);
+        synchronized (dealerQueue) {
+            dealerQueue.clear();
         }
+        claimBatch.clear();
         for (Player player : players) {
             player.betweenLoopsOfPlayer();
         }
@@ -126,87 +262,228 @@ public class Dealer implements Runnable {
      * @return true iff the game should be finished.
      */
     private boolean shouldFinish() {
-        return terminate || env.util.findSets(deck, 1).size() == 0;
+        return terminate || !oracle.anySet();
     }
 
     /**
-     * Checks cards should be removed from the table and removes them.
+     * Submits a claim of a player for verification. Returns at once: the cards of the claim are read and tested on
+     * a verifier thread, illegal sets are penalized right there, and legal sets are queued for the dealer thread to
+     * remove from the table. A slow table or ui therefore never delays the verdicts of other claims.
+     *
+     * Called as soon as the player completes the set, which is when the claim is stamped.
+     *
+     * @param player - the id of the claiming player.
+     * @param number - the number of the claim (see Player::awaitsVerdict).
      */
-    private void removeCardsFromTable() {
-        while (!dealerQueue.isEmpty()) {
+    void submitClaim(int player, long number) {
+        announceClaim(player);
+        long submitted = System.nanoTime();
+        verifying.set(player, submitted);
+        try {
+            verifiers.execute(() -> verify(player, number, submitted));
+        } catch (RejectedExecutionException ignored) {
+            // the game is over
+            verifying.set(player, Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Publishes that a claim of the player is about to be stamped. Until it is, no verified claim is applied, so no
+     * claim stamped later can be applied before it.
+     *
+     * @param player - the id of the claiming player.
+     */
+    void announceClaim(int player) {
+        verifying.set(player, Long.MIN_VALUE);
+    }
+
+    /**
+     * Verifies a claim (verifier threads).
+     */
+    private void verify(int player, long number, long submitted) {
+        Claim legal = null;
+        try {
+            int[] cards = table.playerChosenCards(player);
+            if (cards.length != env.config.featureSize) {
+                // tokens of the player were removed meanwhile, the claim is void
+                deliverVerdict(player, number, submitted, null);
+            } else if (!env.util.testSet(cards)) {
+                deliverVerdict(player, number, submitted, loose);
+            } else {
+                legal = new Claim(player, number, cards, submitted);
+            }
+        } finally {
             synchronized (dealerQueue) {
-                int playerId = dealerQueue.remove();
-                int[] checkSet = table.playerChosenCards(playerId);
-                if (checkSet.length == env.config.featureSize) {
-                    synchronized (players[playerId].setCheck) {
-                        if (env.util.testSet(checkSet)) {
-                            allFreeze = true;
-                            players[playerId].setCheck.add(win);
-                            for (int card : checkSet) {
-                                int slot = table.cardToSlot[card];
-                                Set<Integer> currSet = table.playersPerSlot.get(slot);
-                                for (int id : currSet) {
-                                    players[id].myTokens.remove(slot);
-                                    if (id != playerId && dealerQueue.contains(id)) {
-                                        dealerQueue.remove(id);
-                                        synchronized (players[id].setCheck) {
-                                            players[id].setCheck.notifyAll();
-                                        }
-                                    }
-                                }
-                                table.removeCard(slot);
-                            }
-                            reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis;
-                            players[playerId].setCheck.notifyAll();
-                        } else {
-                            players[playerId].setCheck.add(loose);
-                            players[playerId].setCheck.notifyAll();
-                        }
-                    }
-                    updateTimerDisplay(false);
-                } else {
-                    synchronized (players[playerId].setCheck) {
-                        players[playerId].setCheck.notifyAll();
-                    }
-                }
+                if (legal != null) dealerQueue.add(legal);
+                verifying.compareAndSet(player, submitted, Long.MAX_VALUE);
                 dealerQueue.notifyAll();
             }
         }
     }
 
+    private void deliverVerdict(int player, long number, long submitted, Integer verdict) {
+        if (players[player].deliverVerdict(number, verdict) && verdict != null)
+            claimWaits.record(player, System.nanoTime() - submitted);
+    }
+
+    /**
+     * Checks cards should be removed from the table and removes them.
+     * All the verified claims are drained at once and applied in submission order, up to the first claim submitted
+     * after a claim still being verified (it waits for the next pass). Of overlapping claims the earliest submitted
+     * wins and later claims on any of its cards are void (no verdict). All the verdicts are then delivered in one
+     * pass.
+     */
+    void removeCardsFromTable() {
+        synchronized (dealerQueue) {
+            dealerQueue.drainTo(claimBatch);
+        }
+        claimBatch.sort(BY_SUBMISSION);
+        int ready = readyClaims();
+        if (ready == 0) return;
+        List<Claim> batch = claimBatch.subList(0, ready);
+        recordClaimBatch(ready);
+
+        // the claims were verified against the table as it was then, so only check that their cards are still held
+        for (Claim claim : batch) {
+            if (!players[claim.player].awaitsVerdict(claim.number)) continue; // abandoned
+            if (holds(claim.player, claim.cards)) {
+                removeClaimedSet(claim.cards);
+                claimVerdicts[claim.player] = win;
+            }
+        }
+
+        // deliver the verdicts
+        for (Claim claim : batch) {
+            deliverVerdict(claim.player, claim.number, claim.submitted, claimVerdicts[claim.player]);
+            claimVerdicts[claim.player] = null;
+        }
+        releaseTokenOwners();
+        batch.clear();
+        updateTimerDisplay(false);
+    }
+
+    /**
+     * @return - the number of claims at the start of the (sorted) batch that no claim still being verified was
+     * submitted before.
+     */
+    private int readyClaims() {
+        for (int i = 0; i < claimBatch.size(); i++) {
+            Claim claim = claimBatch.get(i);
+            for (int id = 0; id < players.length; id++)
+                if (id != claim.player && verifying.get(id) < claim.submitted) return i;
+        }
+        return claimBatch.size();
+    }
+
+    /**
+     * @param player - the player id.
+     * @param cards  - the cards of a claim of the player.
+     * @return - true iff all the cards are on the table with tokens of the player on them.
+     */
+    private boolean holds(int player, int[] cards) {
+        for (int card : cards) {
+            Integer slot = table.cardToSlot[card];
+            if (slot == null || !table.playersPerSlot.get(slot).contains(player)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Removes the cards of an accepted set from the table, along with all the tokens placed on them.
+     *
+     * @param cards - the cards of the set.
+     */
+    private void removeClaimedSet(int[] cards) {
+        allFreeze = true;
+        for (int i = 0; i < cards.length; i++) {
+            batchSlots[i] = table.cardToSlot[cards[i]];
+            takeTokens(batchSlots[i]);
+            oracle.remove(cards[i]);
+        }
+        table.removeCards(batchSlots, cards.length);
+        reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis;
+    }
+
+    /**
+     * Removes the tokens placed on a slot from their players (the table clears them from the slot with its card).
+     *
+     * @param slot - the slot whose card is about to be removed.
+     */
+    private void takeTokens(int slot) {
+        for (int id : table.playersPerSlot.get(slot)) {
+            players[id].myTokens.remove(slot);
+            tokensTaken[id] = true;
+        }
+    }
+
+    /**
+     * Wakes the players whose tokens were taken (their pending claims are void).
+     */
+    private void releaseTokenOwners() {
+        for (Player player : players) {
+            if (tokensTaken[player.id]) player.cancelClaim();
+            tokensTaken[player.id] = false;
+        }
+    }
+
+    private void recordClaimBatch(int size) {
+        claimBatches++;
+        claimsVerified += size;
+        largestClaimBatch = Math.max(largestClaimBatch, size);
+    }
+
     /**
      * Check if any cards can be removed from the deck and placed on the table.
      */
     private void placeCardsOnTable() {
+        if (table.openSlots() > env.config.tableSize) shrinkTable();
+        if (deck.isEmpty() || table.emptySlots() == 0) {
+            allFreeze = false;
+            return;
+        }
         allFreeze = true;
-        List<Integer> places = new ArrayList<>();
-        for (int j = 0; j < env.config.tableSize; j++)
-            places.add(j);
-        Collections.shuffle(places);
-        if (table.countCards() != env.config.tableSize && !deck.isEmpty()) {
-            for (int i = 0; i < env.config.tableSize; i++) {
-                if (table.slotToCard[places.get(i)] == null) {
-                    if (!deck.isEmpty())
-                        table.placeCard(deck.remove(0), places.get(i));
-                }
+        dealing.arrange(table, deck, Math.min(table.emptySlots(), deck.size()));
+        int count = 0;
+        for (int slot : slotOrder.shuffle())
+            if (table.slotToCard[slot] == null && !deck.isEmpty()) {
+                batchCards[count] = deck.draw();
+                batchSlots[count++] = slot;
             }
-        }
+        table.placeCards(batchCards, batchSlots, count);
         allFreeze = false;
-
     }
 
     /**
-     * Sleep for a fixed amount of time or until the thread is awakened for some purpose.
+     * Sleep until a verified claim can be applied, or until the next deadline (reshuffle time or the next
+     * change of the countdown display) passes.
      */
     private void sleepUntilWokenOrTimeout() {
-        if (dealerQueue.isEmpty()) {
-            try {
-                Thread.sleep(10);
-            } catch (InterruptedException e) {
+        synchronized (dealerQueue) {
+            long wakeupTime = nextWakeupTime();
+            for (long wait = wakeupTime - System.currentTimeMillis();
+                 dealerQueue.isEmpty() && readyClaims() == 0 && !terminate && wait > 0;
+                 wait = wakeupTime - System.currentTimeMillis()) {
+                try {
+                    dealerQueue.wait(wait);
+                } catch (InterruptedException ignored) {
+                }
             }
         }
     }
 
+    /**
+     * @return - the next time the dealer has to act without being woken: the countdown display changes every second,
+     * and every 10 milliseconds during the turn timeout warning.
+     */
+    private long nextWakeupTime() {
+        long now = System.currentTimeMillis();
+        long remaining = reshuffleTime - now;
+        if (remaining <= env.config.turnTimeoutWarningMillis)
+            return now + Math.min(remaining, 10);
+        long nextSecond = remaining % 1000 == 0 ? 1000 : remaining % 1000;
+        return now + Math.min(nextSecond, remaining - env.config.turnTimeoutWarningMillis);
+    }
+
     /**
      * Reset and/or update the countdown and the countdown display.
      */
@@ -221,18 +498,79 @@ public class Dealer implements Runnable {
      */
     private void removeAllCardsFromTable() {
         allFreeze = true;
-        List<Integer> places = new ArrayList<>();
-        for (int j = 0; j < env.config.tableSize; j++)
-            places.add(j);
-        Collections.shuffle(places);
-        for (int i = 0; i < env.config.tableSize; i++) {
-            if (table.slotToCard[places.get(i)] != null) {
-                deck.add(table.slotToCard[places.get(i)]);
-                table.removeCard(places.get(i));
-            }
+        if (table.emptySlots() < table.openSlots()) {
+            int count = 0;
+            for (int slot : slotOrder.shuffle())
+                count = returnCard(slot, count);
+            for (int slot = env.config.tableSize; slot < table.openSlots(); slot++)
+                count = returnCard(slot, count);
+            table.removeCards(batchSlots, count);
+            table.closeEmptyExtraSlots();
         }
         betweenLoops();
+    }
 
+    /**
+     * Returns the card of a slot (if any) to the deck and adds the slot to the batch of slots to clear.
+     *
+     * @return - the number of slots in the batch.
+     */
+    private int returnCard(int slot, int count) {
+        Integer card = table.slotToCard[slot];
+        if (card == null) return count;
+        deck.add(card);
+        batchSlots[count] = slot;
+        return count + 1;
+    }
+
+    /**
+     * While the table is full and holds no set, opens config.featureSize extra slots beyond the table grid and deals
+     * cards to them, like adding cards to a table with no set in the physical game. Stops when the deck is empty or
+     * there is no room for more extra slots (see config.extraSlots, and reachableSlots).
+     */
+    void expandTable() {
+        int count = env.config.featureSize;
+        while (isTableDead() && !deck.isEmpty() && table.openSlots() + count <= reachableSlots) {
+            env.logger.info("no set on the table, opening " + count + " extra slots.");
+            allFreeze = true;
+            int first = table.openSlots();
+            table.openExtraSlots(count);
+            dealing.arrange(table, deck, Math.min(count, deck.size()));
+            int dealt = 0;
+            for (int slot = first; slot < first + count && !deck.isEmpty(); slot++) {
+                batchCards[dealt] = deck.draw();
+                batchSlots[dealt++] = slot;
+            }
+            table.placeCards(batchCards, batchSlots, dealt);
+            allFreeze = false;
+        }
+    }
+
+    /**
+     * Moves the cards of the last open extra slots to the empty open slots before them, then closes the extra slots
+     * left empty. Called before dealing, so once sets are taken the table shrinks back to its grid before any new
+     * card is dealt.
+     */
+    void shrinkTable() {
+        allFreeze = true;
+        int moved = 0;
+        int last = table.openSlots() - 1;
+        for (int slot = 0; slot < last; slot++) {
+            if (table.slotToCard[slot] != null) continue;
+            while (last >= env.config.tableSize && table.slotToCard[last] == null) last--;
+            if (last < env.config.tableSize || last <= slot) break;
+
+            batchCards[moved] = table.slotToCard[last];
+            batchSlots[moved] = last;
+            batchTargets[moved++] = slot;
+            takeTokens(last);
+            last--;
+        }
+        table.removeCards(batchSlots, moved);
+        table.placeCards(batchCards, batchTargets, moved);
+        table.closeEmptyExtraSlots();
+        if (moved > 0) releaseTokenOwners();
+        allFreeze = false;
     }
 
     /**
@@ -0,0 +1,17 @@
+package bguspl.set.ex;
+
+/**
+ * Decides which cards of the deck are dealt to the empty slots of the table.
+ */
+interface DealingStrategy {
+
+    /**
+     * Called before cards are dealt to the table. Arranges the top of the deck so that the next cards drawn are the
+     * ones to deal.
+     *
+     * @param table - the table being dealt to.
+     * @param deck  - the shuffled deck.
+     * @param count - the number of cards about to be drawn (at most the size of the deck).
+     */
+    void arrange(Table table, Deck deck, int count);
+}
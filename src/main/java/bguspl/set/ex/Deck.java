@@ -0,0 +1,129 @@
+package bguspl.set.ex;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The dealer's deck of cards, kept in a primitive array. Cards are drawn from and returned to the tail of the array,
+ * both in O(1), and the deck is shuffled in place. The position of every card is tracked so any card can be moved to
+ * the top of the deck in O(1).
+ *
+ * @inv 0 <= size <= cards.length
+ */
+class Deck {
+
+    /**
+     * The cards in the deck are cards[0..size-1].
+     */
+    private final int[] cards;
+    private int size;
+
+    /**
+     * The index of each card in cards (only meaningful for cards in the deck).
+     */
+    private final int[] positions;
+
+    /**
+     * A read only list view of the cards in the deck (e.g. for Util::findSets).
+     */
+    private final List<Integer> view = new AbstractList<Integer>() {
+        @Override
+        public Integer get(int index) {
+            if (index < 0 || index >= size) throw new IndexOutOfBoundsException("index: " + index + " size: " + size);
+            return cards[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    };
+
+    /**
+     * Creates a full deck.
+     *
+     * @param deckSize - the number of cards in the game (card ids are 0 to deckSize - 1).
+     */
+    Deck(int deckSize) {
+        cards = new int[deckSize];
+        positions = new int[deckSize];
+        for (int card = 0; card < deckSize; card++) {
+            cards[card] = card;
+            positions[card] = card;
+        }
+        size = deckSize;
+    }
+
+    /**
+     * Shuffles the cards in the deck (Fisher-Yates).
+     */
+    void shuffle() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = size - 1; i > 0; i--)
+            swap(i, random.nextInt(i + 1));
+    }
+
+    private void swap(int i, int j) {
+        int card = cards[i];
+        cards[i] = cards[j];
+        cards[j] = card;
+        positions[cards[i]] = i;
+        positions[cards[j]] = j;
+    }
+
+    /**
+     * Moves a card of the deck so it is drawn after exactly depth other cards.
+     *
+     * @param card  - the card id.
+     * @param depth - the number of cards to be drawn before it.
+     * @pre - contains(card) && depth < size()
+     */
+    void moveToTop(int card, int depth) {
+        swap(positions[card], size - 1 - depth);
+    }
+
+    /**
+     * @param card - the card id.
+     * @return - true iff the card is in the deck.
+     */
+    boolean contains(int card) {
+        int position = positions[card];
+        return position < size && cards[position] == card;
+    }
+
+    /**
+     * Draws a card from the deck.
+     *
+     * @pre - the deck is not empty.
+     * @return - the card drawn.
+     */
+    int draw() {
+        return cards[--size];
+    }
+
+    /**
+     * Returns a card to the deck.
+     *
+     * @param card - the card id.
+     */
+    void add(int card) {
+        positions[card] = size;
+        cards[size++] = card;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return - a read only list view of the cards in the deck.
+     */
+    List<Integer> asList() {
+        return view;
+    }
+}
@@ -0,0 +1,30 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The timer shared by the freezes of all the players. A single daemon thread runs the freeze countdown updates, so a
+ * frozen player does not hold its own thread while the freeze lasts.
+ */
+final class FreezeTimer {
+
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "freeze-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private FreezeTimer() {}
+
+    /**
+     * Runs a task on the timer thread after a delay.
+     *
+     * @param task  - the task to run.
+     * @param nanos - the delay in nanoseconds.
+     */
+    static void schedule(Runnable task, long nanos) {
+        timer.schedule(task, nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,21 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Parks until signaled. No cpu is used while waiting.
+ */
+class ParkWait implements WaitStrategy {
+
+    @Override
+    public void await(BooleanSupplier condition) {
+        while (!condition.getAsBoolean())
+            LockSupport.park(this);
+    }
+
+    @Override
+    public void signal(Thread waiter) {
+        if (waiter != null) LockSupport.unpark(waiter);
+    }
+}
@@ -1,13 +1,17 @@
 package bguspl.set.ex;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.LinkedList;
 import java.util.Queue;
 import java.util.Random;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import bguspl.set.Env;
 
@@ -63,11 +67,55 @@ public class Player implements Runnable {
     private BlockingQueue<Integer> actions;
     //dealer of the game 
     private Dealer dealer;
-    public long penaltyTime;
-    public BlockingQueue<Integer> myTokens;
+    /**
+     * The slots the player has tokens on (also updated by the dealer when it removes cards).
+     */
+    final TokenSet myTokens;
 
     public BlockingQueue<Integer> setCheck;
-    private volatile boolean froze;
+
+    /**
+     * The end of the current point or penalty freeze (System::nanoTime). Key presses are ignored until then.
+     */
+    private volatile long frozenUntil;
+
+    /**
+     * The number of claims the player submitted, and the number of the claim it waits for a verdict on (0 if none).
+     * Written under the setCheck lock.
+     */
+    private long claims;
+    private volatile long pendingClaim;
+
+    /**
+     * How the player thread waits for verdicts (see config.verdictWaitStrategy).
+     */
+    private final WaitStrategy verdictWait;
+
+    /**
+     * Verdict wait metrics (player thread only): the number of waits, the total time from the delivery of a verdict
+     * to the player resuming, and the total cpu time spent waiting. The delivery time of the last verdict is set by
+     * the delivering thread.
+     */
+    private long verdictWaits;
+    private long verdictWakeupNanos;
+    private long verdictWaitCpuNanos;
+    private volatile long verdictDeliveredAt;
+
+    /**
+     * What happens to a key press when the action queue is full: it is dropped (DropNewest), the oldest queued key
+     * press is dropped instead (DropOldest), or, with Coalesce, a press of a slot already queued is dropped as a
+     * duplicate and other presses are dropped if the queue is full.
+     */
+    private enum OverflowPolicy { DropNewest, DropOldest, Coalesce }
+
+    private final OverflowPolicy overflowPolicy;
+
+    /**
+     * The number of key presses dropped by the overflow policy.
+     */
+    private final AtomicLong droppedKeys = new AtomicLong();
+
+    private static final ThreadMXBean threadCpu = ManagementFactory.getThreadMXBean();
 
 
     /**
@@ -86,10 +134,37 @@ public class Player implements Runnable {
         this.human = human;
         this.dealer = dealer;
         score = 0;
-        penaltyTime = System.currentTimeMillis();
+        frozenUntil = System.nanoTime();
         this.actions = new LinkedBlockingQueue<>(env.config.featureSize);
-        myTokens = new LinkedBlockingQueue<>(env.config.featureSize);
+        myTokens = new TokenSet(env.config.tableCapacity);
         this.setCheck = new LinkedBlockingQueue<>(1);
+        verdictWait = createWaitStrategy();
+        overflowPolicy = createOverflowPolicy();
+    }
+
+    private OverflowPolicy createOverflowPolicy() {
+        try {
+            return OverflowPolicy.valueOf(env.config.actionOverflowPolicy);
+        } catch (IllegalArgumentException e) {
+            env.logger.severe("unknown action overflow policy " + env.config.actionOverflowPolicy + ", using DropNewest.");
+            return OverflowPolicy.DropNewest;
+        }
+    }
+
+    private WaitStrategy createWaitStrategy() {
+        switch (env.config.verdictWaitStrategy) {
+            case "Spin":
+                return new SpinWait();
+            case "SpinYield":
+                return new SpinYieldWait(env.config.verdictWaitSpins);
+            case "SpinPark":
+                return new SpinParkWait(env.config.verdictWaitSpins);
+            case "Park":
+                return new ParkWait();
+            default:
+                env.logger.severe("unknown verdict wait strategy " + env.config.verdictWaitStrategy + ", using Park.");
+                return new ParkWait();
+        }
     }
 
     /**
@@ -101,34 +176,30 @@ public class Player implements Runnable {
         env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
         if (!human) createArtificialIntelligence();
         while (!terminate) {
-            if (!actions.isEmpty()) {
-                int slot = actions.remove();
-                if (table.slotToCard[slot] != null) {
-                    if (table.removeToken(id, slot)) {
-                        myTokens.remove(slot);
-                    } else if (myTokens.size() < env.config.featureSize) {
-                        table.placeToken(id, slot);
-                        myTokens.add(slot);
-                        if (myTokens.size() == env.config.featureSize) {
-                            synchronized (dealer.dealerQueue) {
-                                if (myTokens.size() == env.config.featureSize) {
-                                    dealer.dealerQueue.add(id);
-                                }
-                                dealer.dealerQueue.notifyAll();
-                            }
-                            synchronized (setCheck) {
-                                while (setCheck.isEmpty() && myTokens.size() == env.config.featureSize) {
-                                    try {
-                                        setCheck.wait();
-                                    } catch (InterruptedException ignored) {}
-                                }
-                            }
-                            if (!setCheck.isEmpty()) {
-                                if (setCheck.remove() == dealer.win) {
-                                    point();
-                                } else {
-                                    penalty();
-                                }
+            // block until a key is pressed, terminate() interrupts the wait
+            int slot;
+            try {
+                slot = actions.take();
+            } catch (InterruptedException ignored) {
+                continue;
+            }
+            if (isFrozen()) continue; // pressed before the freeze started
+            if (table.slotToCard[slot] != null) {
+                if (table.removeToken(id, slot)) {
+                    myTokens.remove(slot);
+                } else if (myTokens.size() < env.config.featureSize) {
+                    table.placeToken(id, slot);
+                    myTokens.add(slot);
+                    if (myTokens.size() == env.config.featureSize) {
+                        long claim = openClaim();
+                        dealer.submitClaim(id, claim);
+                        awaitVerdict(claim);
+                        Integer verdict = setCheck.poll();
+                        if (verdict != null) {
+                            if (verdict == dealer.win) {
+                                point();
+                            } else {
+                                penalty();
                             }
                         }
                     }
@@ -139,12 +210,33 @@ public class Player implements Runnable {
             aiThread.join();
         } catch (InterruptedException ignored) {
         }
+        if (verdictWaits > 0)
+            env.logger.info("player " + id + " verdict waits (" + env.config.verdictWaitStrategy + "): " + verdictWaits
+                    + ", mean wake-up " + verdictWakeupNanos / verdictWaits / 1000 + " us, mean cpu "
+                    + verdictWaitCpuNanos / verdictWaits / 1000 + " us.");
+        if (droppedKeys.get() > 0)
+            env.logger.info("player " + id + " dropped " + droppedKeys.get() + " key presses (" + overflowPolicy + ").");
         env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
     }
 
+    /**
+     * Waits until the claim is closed: a verdict was delivered, the claim was void or the game terminated.
+     *
+     * @param claim - the number of the claim.
+     */
+    private void awaitVerdict(long claim) {
+        long cpu = threadCpu.getCurrentThreadCpuTime();
+        verdictWait.await(() -> pendingClaim != claim || terminate);
+        long resumed = System.nanoTime();
+        if (pendingClaim == claim) return; // woken by terminate, no verdict to measure
+        verdictWaits++;
+        verdictWakeupNanos += Math.max(0, resumed - verdictDeliveredAt);
+        verdictWaitCpuNanos += threadCpu.getCurrentThreadCpuTime() - cpu;
+    }
+
     /**
      * Creates an additional thread for an AI (computer) player. The main loop of this thread repeatedly generates
-     * key presses. If the queue of key presses is full, the thread waits until it is not full.
+     * key presses. If the queue of key presses is full, the key press is handled by the overflow policy.
      */
     private void createArtificialIntelligence() {
         // note: this is a very, very smart AI (!)
@@ -152,7 +244,7 @@ public class Player implements Runnable {
             env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
             while (!terminate) {
                 Random r = new Random();
-                int i = r.nextInt(env.config.tableSize);
+                int i = r.nextInt(table.openSlots());
                 keyPressed(i);
                 try {
                     Thread.sleep(5);
@@ -173,19 +265,33 @@ public class Player implements Runnable {
     }
 
     /**
-     * This method is called when a key is pressed.
+     * This method is called when a key is pressed. Never blocks (it runs on the ui thread): if the action queue is
+     * full the key press is handled by the overflow policy (see config.actionOverflowPolicy).
      *
      * @param slot - the slot corresponding to the key pressed.
      */
     public void keyPressed(int slot) {
-        if (!froze && !dealer.allFreeze) {
-            try {
-                actions.put(slot);
-            } catch (InterruptedException ignored) {
-            }
+        if (isFrozen() || dealer.allFreeze) return;
+        switch (overflowPolicy) {
+            case DropOldest:
+                while (!actions.offer(slot))
+                    if (actions.poll() != null) droppedKeys.incrementAndGet();
+                break;
+            case Coalesce:
+                if (actions.contains(slot) || !actions.offer(slot)) droppedKeys.incrementAndGet();
+                break;
+            default:
+                if (!actions.offer(slot)) droppedKeys.incrementAndGet();
         }
     }
 
+    /**
+     * @return - the number of key presses dropped because the action queue was full (or duplicates, with Coalesce).
+     */
+    public long droppedKeys() {
+        return droppedKeys.get();
+    }
+
     /**
      * Award a point to a player and perform other related actions.
      *
@@ -193,48 +299,114 @@ public class Player implements Runnable {
      * @post - the player's score is updated in the ui.
      */
     public void point() {
-        froze = true;
         score++;
         int ignored = table.countCards(); // this part is just for demonstration in the unit tests
         env.ui.setScore(id, score);
-        penaltyTime = System.currentTimeMillis() + env.config.pointFreezeMillis;
-        try {
-            for (long i = penaltyTime - System.currentTimeMillis(); i > 0; i -= 1000) {
-                env.ui.setFreeze(id, i);
-                Thread.sleep(1000);
-            }
-            env.ui.setFreeze(id, 0);
-        } catch (InterruptedException e) {
-        }
-        froze = false;
+        freeze(env.config.pointFreezeMillis);
     }
 
     /**
      * Penalize a player and perform other related actions.
      */
     public void penalty() {
-        froze = true;
-        penaltyTime = System.currentTimeMillis() + env.config.penaltyFreezeMillis;
-        try {
-            for (long i = penaltyTime - System.currentTimeMillis(); i > 0; i -= 1000) {
-                env.ui.setFreeze(id, i);
-                Thread.sleep(1000);
-            }
+        freeze(env.config.penaltyFreezeMillis);
+    }
+
+    /**
+     * Freezes the player until a deadline. Returns at once: the countdown is shown by the freeze timer, and key
+     * presses are ignored until the deadline passes.
+     *
+     * @param millis - the length of the freeze.
+     */
+    private void freeze(long millis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        frozenUntil = deadline;
+        showFreeze(deadline);
+    }
+
+    /**
+     * @return - true iff the player is frozen.
+     */
+    private boolean isFrozen() {
+        return System.nanoTime() - frozenUntil < 0;
+    }
+
+    /**
+     * Shows the time left of a freeze and schedules the next update: when the time left reaches a whole second, or
+     * the deadline. Stops if a newer freeze started.
+     *
+     * @param deadline - the end of the freeze.
+     */
+    private void showFreeze(long deadline) {
+        if (frozenUntil != deadline) return;
+        long left = deadline - System.nanoTime();
+        if (left <= 0) {
             env.ui.setFreeze(id, 0);
-        } catch (InterruptedException e) {
+            return;
+        }
+        long second = TimeUnit.SECONDS.toNanos(1);
+        env.ui.setFreeze(id, TimeUnit.NANOSECONDS.toMillis(left + TimeUnit.MILLISECONDS.toNanos(1) - 1));
+        FreezeTimer.schedule(() -> showFreeze(deadline), left % second == 0 ? second : left % second);
+    }
+
+
+    /**
+     * Opens a new claim: from now on the player waits for the verdict on it.
+     *
+     * @return - the number of the claim.
+     */
+    long openClaim() {
+        synchronized (setCheck) {
+            return pendingClaim = ++claims;
         }
-        froze = false;
     }
 
+    /**
+     * @param claim - the number of a claim of the player.
+     * @return - true iff the player still waits for the verdict on the claim (its tokens were not taken meanwhile).
+     */
+    boolean awaitsVerdict(long claim) {
+        synchronized (setCheck) {
+            return claim == pendingClaim;
+        }
+    }
+
+    /**
+     * Delivers the verdict on a claim, closing it, and wakes the player. Verdicts on claims the player no longer
+     * waits for are dropped.
+     *
+     * @param claim   - the number of the claim.
+     * @param verdict - Dealer::win, Dealer::loose, or null if the claim is void.
+     * @return - true iff the player waited for the verdict on the claim.
+     */
+    boolean deliverVerdict(long claim, Integer verdict) {
+        boolean awaited;
+        synchronized (setCheck) {
+            awaited = claim != 0 && claim == pendingClaim;
+            if (awaited) {
+                if (verdict != null) setCheck.offer(verdict);
+                verdictDeliveredAt = System.nanoTime();
+                pendingClaim = 0;
+            }
+        }
+        if (awaited) verdictWait.signal(playerThread);
+        return awaited;
+    }
+
+    /**
+     * Voids the pending claim of the player, if any, and wakes the player. Called when tokens of the player are
+     * taken off the table.
+     */
+    void cancelClaim() {
+        deliverVerdict(pendingClaim, null);
+    }
 
     public int score() {
         return score;
     }
 
     public void betweenLoopsOfPlayer() {
-        for (Integer place : myTokens) {
-            myTokens.remove(place);
-        }
+        myTokens.clear();
         for (Integer spot : actions) {
             actions.remove(spot);
         }
@@ -242,8 +414,8 @@ public class Player implements Runnable {
             for (int decsion : setCheck) {
                 setCheck.remove(decsion);
             }
-            setCheck.notifyAll();
         }
+        cancelClaim();
     }
 
 
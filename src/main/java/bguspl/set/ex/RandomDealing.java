@@ -0,0 +1,12 @@
+package bguspl.set.ex;
+
+/**
+ * Deals the cards at the top of the shuffled deck.
+ */
+class RandomDealing implements DealingStrategy {
+
+    @Override
+    public void arrange(Table table, Deck deck, int count) {
+        // the deck is already shuffled
+    }
+}
@@ -0,0 +1,106 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Deals cards so that the table holds at least one legal set whenever the deck allows it. If the table has no set,
+ * one of the sets that can be formed with the cards on the table and at most count new cards is chosen uniformly at
+ * random, and its new cards are dealt first; the rest of the cards dealt are random.
+ * Candidate sets are found by completing every choice of featureSize - 1 cards (see Util::completeSet).
+ */
+class SetGuaranteedDealing implements DealingStrategy {
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * Scratch space (dealer thread only): the cards on the table followed by the cards in the deck, the index of each
+     * card among them (-1 if none) and the candidate set being built.
+     */
+    private final int[] pool;
+    private final int[] poolIndex;
+    private final int[] partial;
+    private final int[] partialIndexes;
+    private final int[] chosen;
+
+    private int tableCards;
+    private int poolSize;
+    private int maxNewCards;
+    private int candidates;
+
+    SetGuaranteedDealing(Env env) {
+        this.env = env;
+        pool = new int[env.config.deckSize];
+        poolIndex = new int[env.config.deckSize];
+        Arrays.fill(poolIndex, -1);
+        partial = new int[env.config.featureSize - 1];
+        partialIndexes = new int[env.config.featureSize - 1];
+        chosen = new int[env.config.featureSize];
+    }
+
+    @Override
+    public void arrange(Table table, Deck deck, int count) {
+        if (count == 0 || table.anySet()) return;
+
+        tableCards = 0;
+        for (Integer card : table.slotToCard)
+            if (card != null) pool[tableCards++] = card;
+        poolSize = tableCards;
+        for (int card : deck.asList())
+            pool[poolSize++] = card;
+        for (int i = 0; i < poolSize; i++)
+            poolIndex[pool[i]] = i;
+
+        maxNewCards = count;
+        candidates = 0;
+        try {
+            search(0, 0);
+        } finally {
+            for (int i = 0; i < poolSize; i++)
+                poolIndex[pool[i]] = -1;
+        }
+
+        if (candidates == 0) return;
+        int depth = 0;
+        for (int card : chosen)
+            if (deck.contains(card)) deck.moveToTop(card, depth++);
+    }
+
+    /**
+     * Goes over every choice of featureSize - 1 cards (by increasing pool index) and completes it to a set. Sets with
+     * at least one and at most maxNewCards cards from the deck are candidates, one of which is kept in chosen
+     * (reservoir sampling).
+     *
+     * @param depth - the number of cards chosen so far.
+     * @param from  - the pool index of the first card that may be chosen next.
+     */
+    private void search(int depth, int from) {
+        if (depth == partial.length) {
+            int completion = env.util.completeSet(partial);
+            if (completion < 0) return;
+            int completionIndex = poolIndex[completion];
+            if (completionIndex <= partialIndexes[depth - 1]) return; // not available, or reached another way
+
+            int newCards = completionIndex >= tableCards ? 1 : 0;
+            for (int index : partialIndexes)
+                if (index >= tableCards) newCards++;
+            if (newCards == 0 || newCards > maxNewCards) return;
+
+            if (ThreadLocalRandom.current().nextInt(++candidates) == 0) {
+                System.arraycopy(partial, 0, chosen, 0, partial.length);
+                chosen[partial.length] = completion;
+            }
+            return;
+        }
+        for (int i = from; i < poolSize - (partial.length - depth); i++) {
+            partial[depth] = pool[i];
+            partialIndexes[depth] = i;
+            search(depth + 1, i + 1);
+        }
+    }
+}
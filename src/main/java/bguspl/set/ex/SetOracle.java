@@ -0,0 +1,84 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Answers whether a legal set can still be formed from the cards remaining in the game (in the deck or on the table).
+ * Keeps a presence bitset of the remaining cards and a witness set among them. As long as the witness cards are all
+ * present the answer is a few bit tests; a new witness is only searched for when a witness card leaves the game.
+ * Once no set is found the answer stays false, since cards never return to the game.
+ */
+class SetOracle {
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * Bitset of the cards still in the game.
+     */
+    private final long[] present;
+
+    /**
+     * A legal set whose cards are all still in the game (null if it needs to be searched for).
+     */
+    private int[] witness;
+
+    /**
+     * True iff no legal set can be formed from the remaining cards anymore.
+     */
+    private boolean exhausted;
+
+    /**
+     * @param env   - the game environment object.
+     * @param cards - the cards in the game.
+     */
+    SetOracle(Env env, List<Integer> cards) {
+        this.env = env;
+        present = new long[(env.config.deckSize + 63) / 64];
+        for (int card : cards)
+            present[card >>> 6] |= 1L << card;
+    }
+
+    /**
+     * Marks a card as having left the game.
+     *
+     * @param card - the card id.
+     */
+    void remove(int card) {
+        present[card >>> 6] &= ~(1L << card);
+        if (witness != null)
+            for (int c : witness)
+                if (c == card) {
+                    witness = null;
+                    break;
+                }
+    }
+
+    /**
+     * @return - true iff a legal set can be formed from the cards still in the game.
+     */
+    boolean anySet() {
+        if (witness == null && !exhausted) {
+            List<int[]> sets = env.util.findSets(remainingCards(), 1);
+            if (sets.isEmpty()) exhausted = true;
+            else witness = sets.get(0);
+        }
+        return witness != null;
+    }
+
+    private boolean contains(int card) {
+        return (present[card >>> 6] & (1L << card)) != 0;
+    }
+
+    private List<Integer> remainingCards() {
+        List<Integer> cards = new ArrayList<>();
+        for (int card = 0; card < env.config.deckSize; card++)
+            if (contains(card)) cards.add(card);
+        return cards;
+    }
+}
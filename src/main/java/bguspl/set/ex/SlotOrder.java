@@ -0,0 +1,38 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A reusable random ordering of the table slots, for placing and removing cards in random order without allocating.
+ *
+ * @inv order is a permutation of 0..tableSize-1
+ */
+class SlotOrder {
+
+    private final int[] order;
+
+    /**
+     * @param tableSize - the number of slots on the table.
+     */
+    SlotOrder(int tableSize) {
+        order = new int[tableSize];
+        for (int slot = 0; slot < tableSize; slot++)
+            order[slot] = slot;
+    }
+
+    /**
+     * Shuffles the slots in place (Fisher-Yates).
+     *
+     * @return - all the slots, in random order. The array is reused by the next call.
+     */
+    int[] shuffle() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int slot = order[i];
+            order[i] = order[j];
+            order[j] = slot;
+        }
+        return order;
+    }
+}
@@ -0,0 +1,31 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Spins on the condition for a while, then parks until signaled. Fast verdicts are caught while spinning, slow ones
+ * cost no cpu.
+ */
+class SpinParkWait implements WaitStrategy {
+
+    private final int spins;
+
+    /**
+     * @param spins - the number of checks of the condition before parking.
+     */
+    SpinParkWait(int spins) {
+        this.spins = spins;
+    }
+
+    @Override
+    public void await(BooleanSupplier condition) {
+        for (int i = 0; !condition.getAsBoolean(); i++)
+            if (i >= spins) LockSupport.park(this);
+    }
+
+    @Override
+    public void signal(Thread waiter) {
+        if (waiter != null) LockSupport.unpark(waiter);
+    }
+}
@@ -0,0 +1,27 @@
+package bguspl.set.ex;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Spins on the condition for a while, then keeps checking it between yields of the processor.
+ */
+class SpinYieldWait implements WaitStrategy {
+
+    private final int spins;
+
+    /**
+     * @param spins - the number of checks of the condition before yielding.
+     */
+    SpinYieldWait(int spins) {
+        this.spins = spins;
+    }
+
+    @Override
+    public void await(BooleanSupplier condition) {
+        for (int i = 0; !condition.getAsBoolean(); i++)
+            if (i >= spins) Thread.yield();
+    }
+
+    @Override
+    public void signal(Thread waiter) {}
+}
@@ -38,11 +38,36 @@ public class Table {
 
     protected final List<Set<Integer>> playersPerSlot;
 
+    /**
+     * The number of open slots: the table grid (config.tableSize) plus the extra slots currently open
+     * (at most config.tableCapacity).
+     */
+    private volatile int openSlots;
 
+    /**
+     * The number of open slots without a card.
+     */
+    private volatile int emptySlots;
 
+    /**
+     * Index of the legal sets currently on the table: the sets (as sorted slot arrays) each slot takes part in.
+     * Maintained incrementally by placeCard and removeCard.
+     */
+    private final List<List<int[]>> setsPerSlot;
 
     /**
-     * Constructor for testing.
+     * The number of legal sets currently on the table.
+     */
+    private volatile int setCount;
+
+    /**
+     * Scratch space for completing the cards of a placed card to a set (dealer thread only).
+     */
+    private final int[] partialSet;
+    private final int[] partialSlots;
+
+    /**
+     * Constructor for testing. Cards already in the grid slots of the mappings are counted and their sets indexed.
      *
      * @param env        - the game environment objects.
      * @param slotToCard - mapping between a slot and the card placed in it (null if none).
@@ -53,11 +78,29 @@ public class Table {
         this.env = env;
         this.slotToCard = slotToCard;
         this.cardToSlot = cardToSlot;
-        playersPerSlot=new ArrayList<Set<Integer>>(env.config.tableSize);
-        for(int i=0; i<env.config.tableSize; i++){
+        playersPerSlot=new ArrayList<Set<Integer>>(slotToCard.length);
+        for(int i=0; i<slotToCard.length; i++){
             playersPerSlot.add(i, new HashSet<Integer>());
         }
+        setsPerSlot = new ArrayList<>(slotToCard.length);
+        for (int i = 0; i < slotToCard.length; i++)
+            setsPerSlot.add(new ArrayList<>());
+        partialSet = new int[env.config.featureSize - 1];
+        partialSlots = new int[env.config.featureSize - 1];
+        openSlots = Math.min(env.config.tableSize, slotToCard.length);
 
+        // index the sets of the cards already on the table as if they were placed one by one, so each set is added once
+        Integer[] placed = Arrays.copyOf(slotToCard, openSlots);
+        for (int slot = 0; slot < openSlots; slot++) {
+            if (placed[slot] == null) emptySlots++;
+            else cardToSlot[placed[slot]] = slotToCard[slot] = null;
+        }
+        for (int slot = 0; slot < openSlots; slot++) {
+            if (placed[slot] == null) continue;
+            slotToCard[slot] = placed[slot];
+            cardToSlot[placed[slot]] = slot;
+            indexSetsOf(slot);
+        }
     }
 
     /**
@@ -67,7 +110,7 @@ public class Table {
      */
     public Table(Env env) {
 
-        this(env, new Integer[env.config.tableSize], new Integer[env.config.deckSize]);
+        this(env, new Integer[env.config.tableCapacity], new Integer[env.config.deckSize]);
     }
 
     /**
@@ -75,7 +118,7 @@ public class Table {
      */
     public void hints() {
         List<Integer> deck = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
-        env.util.findSets(deck, Integer.MAX_VALUE).forEach(set -> {
+        env.util.streamSets(deck).forEach(set -> {
             StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
             List<Integer> slots = Arrays.stream(set).mapToObj(card -> cardToSlot[card]).sorted().collect(Collectors.toList());
             int[][] features = env.util.cardsToFeatures(set);
@@ -96,6 +139,47 @@ public class Table {
         return cards;
     }
 
+    /**
+     * Count the number of open slots without a card, as left by placeCard and removeCard (in O(1)).
+     *
+     * @return - the number of empty slots on the table.
+     */
+    public int emptySlots() {
+        return emptySlots;
+    }
+
+    /**
+     * @return - the number of open slots (slots 0 to openSlots() - 1 may hold cards).
+     */
+    public int openSlots() {
+        return openSlots;
+    }
+
+    /**
+     * Opens extra slots after the open ones, beyond the table grid.
+     *
+     * @param count - the number of slots to open.
+     * @pre - openSlots() + count <= config.tableCapacity
+     */
+    public void openExtraSlots(int count) {
+        emptySlots += count;
+        openSlots += count;
+        env.ui.setOpenSlots(openSlots);
+    }
+
+    /**
+     * Closes the empty extra slots at the end of the open slots (the table grid always stays open).
+     */
+    public void closeEmptyExtraSlots() {
+        int open = openSlots;
+        while (open > env.config.tableSize && slotToCard[open - 1] == null)
+            open--;
+        if (open == openSlots) return;
+        emptySlots -= openSlots - open;
+        openSlots = open;
+        env.ui.setOpenSlots(openSlots);
+    }
+
     /**
      * Places a card on the table in a grid slot.
      * @param card - the card id to place in the slot.
@@ -104,29 +188,71 @@ public class Table {
      * @post - the card placed is on the table, in the assigned slot.
      */
     public  void placeCard(int card, int slot) {
-        try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException ignored) {}
+        delay();
+        putCard(card, slot);
+    }
+
+    /**
+     * Places several cards on the table at once, with a single table delay for the whole batch.
+     * @param cards - the card ids to place.
+     * @param slots - the slots in which to place them (cards[i] is placed in slots[i]).
+     * @param count - the number of cards to place (the first count entries of the arrays).
+     *
+     * @post - the cards placed are on the table, in the assigned slots.
+     */
+    public void placeCards(int[] cards, int[] slots, int count) {
+        if (count == 0) return;
+        delay();
+        for (int i = 0; i < count; i++)
+            putCard(cards[i], slots[i]);
+    }
 
-            cardToSlot[card] = slot;
-            slotToCard[slot] = card;
-            env.ui.placeCard(card, slot);
+    private void putCard(int card, int slot) {
+        if (slotToCard[slot] == null) emptySlots--;
+        cardToSlot[card] = slot;
+        slotToCard[slot] = card;
+        indexSetsOf(slot);
+        env.ui.placeCard(card, slot);
     }
-    
+
 
     /**
      * Removes a card from a grid slot on the table.
      * @param slot - the slot from which to remove the card.
      */
     public  void removeCard(int slot) {
+        delay();
+        clearSlot(slot);
+    }
+
+    /**
+     * Removes the cards of several slots at once, with a single table delay for the whole batch.
+     * @param slots - the slots from which to remove the cards.
+     * @param count - the number of slots (the first count entries of the array).
+     */
+    public void removeCards(int[] slots, int count) {
+        if (count == 0) return;
+        delay();
+        for (int i = 0; i < count; i++)
+            clearSlot(slots[i]);
+    }
+
+    /**
+     * Pauses for the table delay (config.tableDelayMillis), once per placement or removal operation.
+     */
+    private void delay() {
         try {
             Thread.sleep(env.config.tableDelayMillis);
         } catch (InterruptedException ignored) {}
+    }
 
+    private void clearSlot(int slot) {
             Integer card = slotToCard[slot];
             if(card!=null){
+                unindexSetsOf(slot);
                 slotToCard[slot] = null;
                 cardToSlot[card] = null;
+                emptySlots++;
                 }
                 Set<Integer> set = playersPerSlot.get(slot);
                 for(int id: set){
@@ -136,6 +262,91 @@ public class Table {
                 env.ui.removeCard(slot);
     }
 
+    /**
+     * Adds to the index every legal set formed by the card in the given slot and other cards on the table.
+     * For each choice of featureSize - 2 other cards the only completing card is looked up, so with featureSize 3
+     * this takes O(tableSize).
+     *
+     * @param slot - the slot of the newly placed card.
+     */
+    private void indexSetsOf(int slot) {
+        partialSet[0] = slotToCard[slot];
+        partialSlots[0] = slot;
+        synchronized (setsPerSlot) {
+            indexSetsOf(1, 0);
+        }
+    }
+
+    private void indexSetsOf(int depth, int fromSlot) {
+        if (depth == partialSet.length) {
+            int completion = env.util.completeSet(partialSet);
+            if (completion < 0 || cardToSlot[completion] == null) return;
+
+            // every set is reached once per choice of its other cards, keep only the one where the completion comes last
+            int completionSlot = cardToSlot[completion];
+            if (completionSlot == partialSlots[0] || (depth > 1 && completionSlot <= partialSlots[depth - 1])) return;
+            for (int i = 1; i < depth; i++)
+                if (completionSlot == partialSlots[i]) return;
+
+            int[] set = Arrays.copyOf(partialSlots, depth + 1);
+            set[depth] = completionSlot;
+            Arrays.sort(set);
+            for (int s : set)
+                setsPerSlot.get(s).add(set);
+            setCount++;
+            return;
+        }
+        for (int s = fromSlot; s < slotToCard.length; s++) {
+            if (s == partialSlots[0] || slotToCard[s] == null) continue;
+            partialSet[depth] = slotToCard[s];
+            partialSlots[depth] = s;
+            indexSetsOf(depth + 1, s + 1);
+        }
+    }
+
+    /**
+     * Removes from the index every legal set the card in the given slot takes part in.
+     *
+     * @param slot - the slot of the card being removed.
+     */
+    private void unindexSetsOf(int slot) {
+        synchronized (setsPerSlot) {
+            List<int[]> sets = setsPerSlot.get(slot);
+            for (int[] set : sets) {
+                for (int s : set)
+                    if (s != slot) setsPerSlot.get(s).remove(set);
+                setCount--;
+            }
+            sets.clear();
+        }
+    }
+
+    /**
+     * @return - the number of legal sets currently on the table.
+     */
+    public int countSets() {
+        return setCount;
+    }
+
+    /**
+     * @return - true iff there is at least one legal set on the table.
+     */
+    public boolean anySet() {
+        return setCount > 0;
+    }
+
+    /**
+     * Returns the legal sets the card in the given slot takes part in.
+     *
+     * @param slot - the slot to check.
+     * @return - a list of sets, each one a sorted array of the slots forming the set.
+     */
+    public List<int[]> setsTouching(int slot) {
+        synchronized (setsPerSlot) {
+            return new ArrayList<>(setsPerSlot.get(slot));
+        }
+    }
+
     /**
      * Places a player token on a grid slot.
      * @param player - the player the token belongs to.
@@ -171,8 +382,9 @@ public class Table {
         List<Integer> myCards = new LinkedList<>();
         int j = 0;
         for (Set<Integer> _slot : playersPerSlot) {
-            if (_slot.contains(player)) {
-                myCards.add(slotToCard[j]);
+            Integer card = slotToCard[j];
+            if (card != null && _slot.contains(player)) {
+                myCards.add(card);
             }
         
             j++;
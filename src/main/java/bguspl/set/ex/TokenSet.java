@@ -0,0 +1,65 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The slots a player has tokens on, as a lock free bitmask: one bit per slot, 64 slots per word. Adding and removing
+ * a token is a single compare and set on the word of the slot, so the player thread and the dealer thread (which
+ * takes tokens off removed cards) never block each other.
+ */
+class TokenSet {
+
+    private final AtomicLongArray words;
+
+    /**
+     * @param slots - the number of slots on the table (see config.tableCapacity).
+     */
+    TokenSet(int slots) {
+        words = new AtomicLongArray(Math.max(1, (slots + 63) >>> 6));
+    }
+
+    /**
+     * @param slot - the slot to add a token on.
+     * @return - true iff there was no token on the slot.
+     */
+    boolean add(int slot) {
+        long bit = 1L << slot;
+        return (words.getAndAccumulate(slot >>> 6, bit, (word, mask) -> word | mask) & bit) == 0;
+    }
+
+    /**
+     * @param slot - the slot to remove the token from.
+     * @return - true iff there was a token on the slot.
+     */
+    boolean remove(int slot) {
+        long bit = 1L << slot;
+        return (words.getAndAccumulate(slot >>> 6, bit, (word, mask) -> word & ~mask) & bit) != 0;
+    }
+
+    /**
+     * @param slot - the slot to check.
+     * @return - true iff there is a token on the slot.
+     */
+    boolean contains(int slot) {
+        return (words.get(slot >>> 6) & (1L << slot)) != 0;
+    }
+
+    /**
+     * @return - the number of tokens. Exact for tables of up to 64 slots; with more slots the words are read one
+     * after the other, so tokens changed meanwhile may or may not be counted.
+     */
+    int size() {
+        int size = 0;
+        for (int i = 0; i < words.length(); i++)
+            size += Long.bitCount(words.get(i));
+        return size;
+    }
+
+    /**
+     * Removes all the tokens.
+     */
+    void clear() {
+        for (int i = 0; i < words.length(); i++)
+            words.set(i, 0);
+    }
+}
@@ -0,0 +1,25 @@
+package bguspl.set.ex;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * How a player thread waits for the verdict on its claim. Strategies trade cpu for wake-up latency: spinning reacts
+ * fastest but keeps a core busy, parking frees the core but pays for a thread wake-up.
+ */
+interface WaitStrategy {
+
+    /**
+     * Blocks the calling thread until the condition holds. The condition must read volatile state, since spinning
+     * strategies check it without any lock.
+     *
+     * @param condition - checked whenever the thread is signaled, and possibly more often.
+     */
+    void await(BooleanSupplier condition);
+
+    /**
+     * Called after the state read by the condition of a waiting thread changed.
+     *
+     * @param waiter - the thread that may be waiting.
+     */
+    void signal(Thread waiter);
+}
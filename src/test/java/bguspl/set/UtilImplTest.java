@@ -0,0 +1,240 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UtilImplTest {
+
+    private Config config;
+    private UtilImpl util;
+    private List<Integer> deck;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        config = new Config(new MockLogger(), properties);
+        util = new UtilImpl(config);
+        deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+        Collections.shuffle(deck, new Random(42));
+    }
+
+    private static Set<String> asStrings(List<int[]> sets) {
+        Set<String> strings = new TreeSet<>();
+        for (int[] set : sets) {
+            int[] sorted = set.clone();
+            Arrays.sort(sorted);
+            strings.add(Arrays.toString(sorted));
+        }
+        return strings;
+    }
+
+    @Test
+    void findSets_CompletionMatchesCombinations_FullDeck() {
+        Util completion = new CompletionUtil(config);
+        List<int[]> expected = util.findSets(deck, Integer.MAX_VALUE);
+
+        assertEquals(1080, expected.size());
+        assertEquals(asStrings(expected), asStrings(completion.findSets(deck, Integer.MAX_VALUE)));
+    }
+
+    @Test
+    void findSets_CompletionMatchesCombinations_PartialDecks() {
+        Util completion = new CompletionUtil(config);
+        for (int size = 0; size <= 15; ++size) {
+            List<Integer> table = new ArrayList<>(deck.subList(size * 4, size * 4 + size));
+            assertEquals(asStrings(util.findSets(table, Integer.MAX_VALUE)), asStrings(completion.findSets(table, Integer.MAX_VALUE)));
+        }
+    }
+
+    @Test
+    void findSets_CompletionHonoursCount() {
+        Util completion = new CompletionUtil(config);
+        List<int[]> sets = completion.findSets(deck, 5);
+
+        assertEquals(5, sets.size());
+        sets.forEach(set -> assertTrue(util.testSet(set)));
+    }
+
+    @Test
+    void findSets_ParallelMatchesCombinations() {
+        Util parallel = new ParallelUtil(config);
+
+        assertEquals(asStrings(util.findSets(deck, Integer.MAX_VALUE)), asStrings(parallel.findSets(deck, Integer.MAX_VALUE)));
+        List<int[]> sets = parallel.findSets(deck, 7);
+        assertEquals(7, sets.size());
+        sets.forEach(set -> assertTrue(util.testSet(set)));
+    }
+
+    @Test
+    void streamSets_IsLazyAndSplittable() {
+        List<int[]> expected = util.findSets(deck, Integer.MAX_VALUE);
+
+        assertEquals(asStrings(expected), asStrings(util.streamSets(deck).parallel().collect(Collectors.toList())));
+        assertArrayEquals(expected.get(0), util.streamSets(deck).findFirst().orElse(null));
+        assertEquals(0, util.streamSets(deck.subList(0, 2)).count());
+
+        // parallel streams keep the encounter order of the sequential walk
+        List<String> sequential = util.streamSets(deck).map(Arrays::toString).collect(Collectors.toList());
+        assertEquals(sequential, util.streamSets(deck).parallel().map(Arrays::toString).collect(Collectors.toList()));
+        assertEquals(sequential.subList(0, 3), util.streamSets(deck).parallel().limit(3).map(Arrays::toString).collect(Collectors.toList()));
+        assertArrayEquals(expected.get(0), util.streamSets(deck).parallel().findFirst().orElse(null));
+    }
+
+    @Test
+    void findSets_BacktrackingMatchesCombinations() {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "4");
+        properties.put("FeatureCount", "3");
+        Config config4 = new Config(new MockLogger(), properties);
+        List<Integer> deck4 = IntStream.range(0, config4.deckSize).boxed().collect(Collectors.toList());
+        Collections.shuffle(deck4, new Random(42));
+
+        for (Config tested : new Config[]{config, config4}) {
+            List<Integer> cards = tested == config ? deck : deck4;
+            Util backtracking = new BacktrackingUtil(tested);
+            for (int size : new int[]{0, 12, 20, cards.size()}) {
+                List<Integer> table = cards.subList(0, size);
+                assertEquals(asStrings(new UtilImpl(tested).findSets(table, Integer.MAX_VALUE)), asStrings(backtracking.findSets(table, Integer.MAX_VALUE)));
+            }
+            assertEquals(3, backtracking.findSets(cards, 3).size());
+        }
+    }
+
+    @Test
+    void findSets_CatalogueMatchesCombinations(@TempDir Path directory) throws IOException {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        properties.put("SetCatalogueDirectory", directory.toString());
+        Config catalogueConfig = new Config(new MockLogger(), properties);
+
+        SetCatalogue catalogue = SetCatalogue.load(catalogueConfig, directory, util);
+        assertEquals(1080, catalogue.setCount());
+        assertEquals(40, catalogue.setsOfCount(0));
+        assertEquals(0, catalogue.card(catalogue.setOf(0, 0), 0));
+
+        // the second instance maps the file generated by the first one
+        Util fromFile = new CatalogueUtil(new MockLogger(), catalogueConfig);
+        for (int size : new int[]{0, 12, 30, deck.size()}) {
+            List<Integer> table = deck.subList(0, size);
+            assertEquals(asStrings(util.findSets(table, Integer.MAX_VALUE)), asStrings(fromFile.findSets(table, Integer.MAX_VALUE)));
+        }
+        assertEquals(4, fromFile.findSets(deck, 4).size());
+    }
+
+    @Test
+    void findSets_CachingReusesResults() {
+        CachingUtil caching = new CachingUtil(util, 2);
+        List<Integer> first = new ArrayList<>(deck.subList(0, 12));
+        List<Integer> second = new ArrayList<>(deck.subList(12, 24));
+        List<Integer> third = new ArrayList<>(deck.subList(24, 36));
+
+        List<int[]> expected = util.findSets(first, Integer.MAX_VALUE);
+        assertEquals(asStrings(expected), asStrings(caching.findSets(first, Integer.MAX_VALUE)));
+        Collections.reverse(first);
+        assertEquals(asStrings(expected), asStrings(caching.streamSets(first).collect(Collectors.toList())));
+        assertEquals(Math.min(1, expected.size()), caching.findSets(first, 1).size());
+        assertEquals(1, caching.misses());
+        assertEquals(1, caching.hits()); // findSets(first, 1), the stream above went around the cache
+
+        caching.findSets(second, Integer.MAX_VALUE);
+        caching.findSets(third, Integer.MAX_VALUE);
+        caching.findSets(first, Integer.MAX_VALUE); // evicted as the least recently used
+        assertEquals(4, caching.misses());
+    }
+
+    @Test
+    void testSet_LookupTableMatchesFeatureComparison() {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        properties.put("LookupTableMaxMegabytes", "0");
+        Util noTable = new UtilImpl(new Config(new MockLogger(), properties));
+
+        for (int first = 0; first < config.deckSize; ++first)
+            for (int second = first + 1; second < config.deckSize; ++second)
+                for (int third = second + 1; third < config.deckSize; third += 7) {
+                    int[] cards = {first, second, third};
+                    assertEquals(noTable.testSet(cards), util.testSet(cards));
+                }
+    }
+
+    @Test
+    void completeSet_FormsLegalSets() {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "4");
+        properties.put("FeatureCount", "3");
+        Util util4 = new UtilImpl(new Config(new MockLogger(), properties));
+
+        assertEquals(-1, util4.completeSet(new int[]{0, 1, 16}));
+        int completion = util4.completeSet(new int[]{0, 21, 42});
+        assertEquals(63, completion);
+        assertTrue(util4.testSet(new int[]{0, 21, 42, completion}));
+
+        for (int first = 0; first < config.deckSize; ++first)
+            for (int second = first + 1; second < config.deckSize; ++second)
+                assertTrue(util.testSet(new int[]{first, second, util.completeSet(new int[]{first, second})}));
+    }
+
+    @Test
+    void testPackedSet_MatchesFeatureComparison() {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "4");
+        properties.put("FeatureCount", "3");
+        properties.put("LookupTableMaxMegabytes", "0");
+        Util util4 = new UtilImpl(new Config(new MockLogger(), properties));
+        Random random = new Random(7);
+
+        for (Util tested : new Util[]{util, util4}) {
+            int deckSize = tested == util ? 81 : 64;
+            int setSize = tested == util ? 3 : 4;
+            for (int i = 0; i < 20000; ++i) {
+                int[] cards = random.ints(setSize, 0, deckSize).toArray();
+                if (i % 2 == 0) cards[setSize - 1] = tested.completeSet(Arrays.copyOf(cards, setSize - 1));
+                if (cards[setSize - 1] < 0) continue;
+
+                long[] packed = Arrays.stream(cards).mapToLong(tested::packCard).toArray();
+                boolean expected = isSet(tested.cardsToFeatures(cards));
+                assertEquals(expected, tested.testPackedSet(packed));
+                assertEquals(expected, tested.testSet(cards));
+            }
+        }
+    }
+
+    private static boolean isSet(int[][] features) {
+        for (int i = 0; i < features[0].length; ++i) {
+            Set<Integer> values = new TreeSet<>();
+            for (int[] card : features)
+                values.add(card[i]);
+            if (values.size() != 1 && values.size() != features.length) return false;
+        }
+        return true;
+    }
+
+    static class MockLogger extends Logger {
+        protected MockLogger() {
+            super("", null);
+        }
+    }
+}
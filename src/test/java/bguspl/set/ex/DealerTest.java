@@ -0,0 +1,222 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DealerTest {
+
+    Dealer dealer;
+    Table table;
+    Player[] players;
+    private Properties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new Properties();
+        properties.put("Rows", "2");
+        properties.put("Columns", "2");
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("ReshuffleWhenNoSet", "True");
+        newGame(0, null);
+    }
+
+    /**
+     * Creates a new dealer, table and computer players (not started) with the current properties.
+     *
+     * @param playerCount - the number of players.
+     * @param util        - the util to use (null for UtilImpl).
+     */
+    private void newGame(int playerCount, Util util) {
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", Integer.toString(playerCount));
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        Env env = new Env(logger, config, new TableTest.MockUserInterface(), util != null ? util : new UtilImpl(config));
+        table = new Table(env);
+        players = new Player[playerCount];
+        dealer = new Dealer(env, table, players);
+        for (int i = 0; i < playerCount; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+    }
+
+    private void placeCards(int... cards) {
+        for (int slot = 0; slot < cards.length; slot++)
+            table.placeCard(cards[slot], slot);
+    }
+
+    private void placeExtraCards(int... cards) {
+        int first = table.openSlots();
+        int[] slots = new int[cards.length];
+        for (int i = 0; i < cards.length; i++)
+            slots[i] = first + i;
+        table.openExtraSlots(cards.length);
+        table.placeCards(cards, slots, cards.length);
+    }
+
+    private void placeTokens(int player, int... slots) {
+        for (int slot : slots) {
+            table.placeToken(player, slot);
+            players[player].myTokens.add(slot);
+        }
+    }
+
+    private void awaitQueuedClaims(int count) throws InterruptedException {
+        while (dealer.dealerQueue.size() < count)
+            Thread.sleep(1);
+    }
+
+    @Test
+    void isTableDead_FullTableWithoutSet() {
+        // cards 0, 1, 3 and 4 hold no set
+        placeCards(0, 1, 3);
+        assertFalse(dealer.isTableDead()); // a card can still be dealt to the empty slot
+
+        table.placeCard(4, 3);
+        assertTrue(dealer.isTableDead());
+
+        table.removeCard(3);
+        table.placeCard(2, 3); // 0, 1, 2 is a set
+        assertFalse(dealer.isTableDead());
+    }
+
+    @Test
+    void timerLoop_ReshufflesAtOnceWhenTableIsDead() {
+        placeCards(0, 1, 3, 4);
+
+        // the turn never times out, so only the dead table check ends the loop
+        assertTimeoutPreemptively(Duration.ofSeconds(1), dealer::timerLoop);
+    }
+
+    @Test
+    void expandTable_DeadGridOpensExtraSlots() {
+        properties.put("ExtraSlots", "3");
+        newGame(0, null);
+        placeCards(0, 1, 3, 4);
+
+        dealer.expandTable();
+        assertEquals(7, table.openSlots());
+        assertEquals(0, table.emptySlots());
+        for (int slot = 4; slot < 7; slot++)
+            assertNotNull(table.slotToCard[slot]);
+        assertEquals(3, (int) table.slotToCard[2]);
+    }
+
+    @Test
+    void shrinkTable_MovesExtraCardsToEmptiedGridSlots() {
+        properties.put("ExtraSlots", "3");
+        newGame(0, null);
+        placeCards(0, 1, 2, 4);
+        placeExtraCards(6, 7, 8);
+
+        table.removeCards(new int[]{0, 1, 2}, 3); // the set 0, 1, 2
+        dealer.shrinkTable();
+        assertEquals(4, table.openSlots());
+        assertEquals(0, table.emptySlots());
+        assertEquals(8, (int) table.slotToCard[0]);
+        assertEquals(7, (int) table.slotToCard[1]);
+        assertEquals(6, (int) table.slotToCard[2]);
+        assertEquals(4, (int) table.slotToCard[3]);
+        assertNull(table.slotToCard[4]);
+    }
+
+    @Test
+    void shrinkTable_SetFromExtraSlotsClosesThem() {
+        properties.put("ExtraSlots", "3");
+        newGame(0, null);
+        placeCards(0, 1, 3, 4);
+        placeExtraCards(6, 7, 8);
+
+        table.removeCards(new int[]{4, 5, 6}, 3); // the set 6, 7, 8
+        dealer.shrinkTable();
+        assertEquals(4, table.openSlots());
+        assertEquals(0, table.emptySlots());
+        assertEquals(0, (int) table.slotToCard[0]);
+        assertEquals(1, (int) table.slotToCard[1]);
+        assertEquals(3, (int) table.slotToCard[2]);
+        assertEquals(4, (int) table.slotToCard[3]);
+    }
+
+    @Test
+    void removeCardsFromTable_EarlierClaimWinsEvenIfVerifiedLast() {
+        properties.put("Columns", "3");
+        properties.put("VerifierThreads", "2");
+        CountDownLatch release = new CountDownLatch(1);
+        newGame(2, new UtilImpl(new Config(new TableTest.MockLogger(), properties)) {
+            @Override
+            public boolean testSet(int[] cards) {
+                // hold the verification of player 0's set (the only one with card 1)
+                for (int card : cards)
+                    if (card == 1) try {
+                        release.await();
+                    } catch (InterruptedException ignored) {
+                    }
+                return super.testSet(cards);
+            }
+        });
+
+        // both players hold a legal set with card 0: player 0 on 0, 1, 2 and player 1 on 0, 3, 6
+        placeCards(0, 1, 2, 3, 6, 80);
+        placeTokens(0, 0, 1, 2);
+        placeTokens(1, 0, 3, 4);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            long first = players[0].openClaim();
+            dealer.submitClaim(0, first);
+            long second = players[1].openClaim();
+            dealer.submitClaim(1, second);
+
+            // the later claim is verified, but waits for the earlier one
+            awaitQueuedClaims(1);
+            dealer.removeCardsFromTable();
+            assertTrue(players[1].awaitsVerdict(second));
+            assertNotNull(table.cardToSlot[0]);
+
+            release.countDown();
+            awaitQueuedClaims(1);
+            dealer.removeCardsFromTable();
+
+            assertEquals(dealer.win, players[0].setCheck.peek());
+            assertNull(players[1].setCheck.peek());
+            assertFalse(players[1].awaitsVerdict(second)); // void, its tokens were taken with card 0
+            assertNull(table.cardToSlot[0]);
+            assertEquals(3, (int) table.cardToSlot[3]);
+        });
+    }
+
+    @Test
+    void removeCardsFromTable_ClaimBeingStampedHoldsBackVerifiedClaims() {
+        properties.put("Columns", "3");
+        newGame(2, null);
+        placeCards(0, 1, 2, 3, 6, 80);
+        placeTokens(1, 0, 3, 4);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            dealer.announceClaim(0);
+            long claim = players[1].openClaim();
+            dealer.submitClaim(1, claim);
+            awaitQueuedClaims(1);
+
+            // player 0 may still get an earlier stamp, so player 1's claim is not applied yet
+            dealer.removeCardsFromTable();
+            assertTrue(players[1].awaitsVerdict(claim));
+            assertNotNull(table.cardToSlot[0]);
+        });
+    }
+}
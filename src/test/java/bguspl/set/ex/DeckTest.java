@@ -0,0 +1,81 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeckTest {
+
+    private static final int DECK_SIZE = 81;
+
+    Deck deck;
+
+    @BeforeEach
+    void setUp() {
+        deck = new Deck(DECK_SIZE);
+    }
+
+    @Test
+    void moveToTop_MovedCardsAreDrawnFirstInOrder() {
+        deck.shuffle();
+        int[] moved = {5, 40, 80};
+        for (int depth = 0; depth < moved.length; depth++)
+            deck.moveToTop(moved[depth], depth);
+
+        for (int card : moved) {
+            assertTrue(deck.contains(card));
+            assertEquals(card, deck.draw());
+            assertFalse(deck.contains(card));
+        }
+        assertEquals(DECK_SIZE - moved.length, deck.size());
+    }
+
+    @Test
+    void shuffle_KeepsAPermutationOfTheCards() {
+        deck.shuffle();
+
+        assertEquals(DECK_SIZE, deck.size());
+        boolean[] seen = new boolean[DECK_SIZE];
+        for (int card : deck.asList()) {
+            assertFalse(seen[card]);
+            seen[card] = true;
+            assertTrue(deck.contains(card));
+        }
+    }
+
+    @Test
+    void drawAndAdd_KeepTheListViewConsistent() {
+        deck.shuffle();
+        List<Integer> before = new ArrayList<>(deck.asList());
+
+        int card = deck.draw();
+        assertEquals(before.get(DECK_SIZE - 1).intValue(), card);
+        assertEquals(before.subList(0, DECK_SIZE - 1), deck.asList());
+        assertFalse(deck.contains(card));
+
+        deck.add(card);
+        assertEquals(before, deck.asList());
+        assertTrue(deck.contains(card));
+    }
+
+    @Test
+    void draw_UntilEmptyReturnsEveryCardOnce() {
+        deck.shuffle();
+        int[] drawn = new int[DECK_SIZE];
+        for (int i = 0; i < DECK_SIZE; i++)
+            drawn[i] = deck.draw();
+
+        assertTrue(deck.isEmpty());
+        assertTrue(deck.asList().isEmpty());
+        Arrays.sort(drawn);
+        for (int card = 0; card < DECK_SIZE; card++)
+            assertEquals(card, drawn[card]);
+    }
+}
@@ -11,11 +11,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -70,4 +76,48 @@ class PlayerTest {
         // check that ui.setScore was called with the player's id and the correct score
         verify(ui).setScore(eq(player.id), eq(expectedScore));
     }
-}
\ No newline at end of file
+
+    @Test
+    void run_IdlePlayerUsesNoCpuAndTerminatesPromptly() throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadCpuTimeSupported());
+        threads.setThreadCpuTimeEnabled(true);
+
+        // a human player with no key presses is idle
+        Env env = new Env(logger, new Config(logger, (String) null), ui, util);
+        Player idle = new Player(env, dealer, table, 1, true);
+        Thread thread = new Thread(idle, "idle-player");
+        thread.start();
+        Thread.sleep(100);
+
+        long cpuBefore = threads.getThreadCpuTime(thread.getId());
+        Thread.sleep(500);
+        long cpuUsed = threads.getThreadCpuTime(thread.getId()) - cpuBefore;
+        assertTrue(cpuUsed < TimeUnit.MILLISECONDS.toNanos(25), "idle player used " + cpuUsed + " ns of cpu");
+
+        idle.terminate();
+        thread.join(1000);
+        assertFalse(thread.isAlive());
+    }
+
+    @Test
+    void penalty_FreezesWithoutBlockingThePlayerThread() {
+        long start = System.nanoTime();
+        player.penalty();
+        long elapsed = System.nanoTime() - start;
+
+        // the freeze is a deadline: the countdown is shown, but the call does not sleep through it
+        assertTrue(elapsed < TimeUnit.MILLISECONDS.toNanos(500), "penalty blocked for " + elapsed + " ns");
+        verify(ui).setFreeze(eq(player.id), longThat(millis -> millis > 0));
+    }
+
+    @Test
+    void keyPressed_FullQueueDropsWithoutBlocking() {
+        int presses = 3 + 2; // the default FeatureSize is 3, so the action queue holds 3 key presses
+
+        for (int slot = 0; slot < presses; slot++)
+            player.keyPressed(slot);
+
+        assertEquals(2, player.droppedKeys());
+    }
+}
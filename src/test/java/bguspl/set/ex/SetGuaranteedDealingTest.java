@@ -0,0 +1,67 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SetGuaranteedDealingTest {
+
+    Table table;
+    Deck deck;
+    SetGuaranteedDealing dealing;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("Rows", "2");
+        properties.put("Columns", "2");
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        properties.put("TableDelaySeconds", "0");
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        Env env = new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config));
+        table = new Table(env);
+        dealing = new SetGuaranteedDealing(env);
+
+        // cards 0, 1 and 3 on the table hold no set, the only cards completing a set with them are 2, 6 and 8
+        table.placeCard(0, 0);
+        table.placeCard(1, 1);
+        table.placeCard(3, 2);
+        deck = new Deck(config.deckSize);
+        while (!deck.isEmpty())
+            deck.draw();
+    }
+
+    @Test
+    void arrange_TableWithNoSetGetsOne() {
+        for (int card = 0; card < 81; card++)
+            if (card != 0 && card != 1 && card != 3) deck.add(card); // card 80 is on top
+        assertFalse(table.anySet());
+
+        dealing.arrange(table, deck, 1);
+        table.placeCard(deck.draw(), 3);
+
+        assertTrue(table.anySet());
+        assertEquals(1, table.countSets());
+    }
+
+    @Test
+    void arrange_NoSetPossibleLeavesDeckAsIs() {
+        deck.add(4);
+        deck.add(80); // neither completes a set with the table cards
+
+        dealing.arrange(table, deck, 1);
+
+        assertEquals(80, deck.draw());
+        assertEquals(4, deck.draw());
+    }
+}
@@ -0,0 +1,98 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SetOracleTest {
+
+    private Config config;
+    private CountingUtil util;
+    private SetOracle oracle;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        config = new Config(logger, properties);
+        util = new CountingUtil(config);
+        Env env = new Env(logger, config, new TableTest.MockUserInterface(), util);
+        oracle = new SetOracle(env, IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList()));
+    }
+
+    @Test
+    void remove_WitnessCardTriggersNewSearch() {
+        assertTrue(oracle.anySet());
+        assertEquals(1, util.searches);
+        int[] witness = util.lastFound;
+
+        // cards outside the witness do not cost a search
+        int other = IntStream.range(0, config.deckSize).filter(card -> !contains(witness, card)).findFirst().getAsInt();
+        oracle.remove(other);
+        assertTrue(oracle.anySet());
+        assertEquals(1, util.searches);
+
+        oracle.remove(witness[0]);
+        assertTrue(oracle.anySet());
+        assertEquals(2, util.searches);
+        assertFalse(contains(util.lastFound, witness[0]));
+        assertFalse(contains(util.lastFound, other));
+    }
+
+    @Test
+    void anySet_SetOnlyAmongTableCards() {
+        // the deck is empty and the table holds cards 0, 1, 2 (a set) and 4
+        for (int card = 0; card < config.deckSize; card++)
+            if (card != 0 && card != 1 && card != 2 && card != 4) oracle.remove(card);
+        assertTrue(oracle.anySet());
+
+        // once the set is taken, 4 alone cannot form one and the answer stays false
+        oracle.remove(0);
+        oracle.remove(1);
+        oracle.remove(2);
+        assertFalse(oracle.anySet());
+        int searches = util.searches;
+        assertFalse(oracle.anySet());
+        assertEquals(searches, util.searches);
+    }
+
+    private static boolean contains(int[] cards, int card) {
+        for (int c : cards)
+            if (c == card) return true;
+        return false;
+    }
+
+    /**
+     * Counts the searches of the oracle and keeps the last set found.
+     */
+    private static class CountingUtil extends UtilImpl {
+
+        int searches;
+        int[] lastFound;
+
+        CountingUtil(Config config) {
+            super(config);
+        }
+
+        @Override
+        public List<int[]> findSets(List<Integer> deck, int count) {
+            searches++;
+            List<int[]> sets = super.findSets(deck, count);
+            if (!sets.isEmpty()) lastFound = sets.get(0);
+            return sets;
+        }
+    }
+}
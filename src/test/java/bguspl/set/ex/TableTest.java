@@ -4,20 +4,28 @@ import bguspl.set.Config;
 import bguspl.set.Env;
 import bguspl.set.UserInterface;
 import bguspl.set.Util;
+import bguspl.set.UtilImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
 import java.util.Properties;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TableTest {
 
     Table table;
     private Integer[] slotToCard;
     private Integer[] cardToSlot;
+    private Config config;
+    private MockLogger logger;
 
     @BeforeEach
     void setUp() {
@@ -30,8 +38,8 @@ class TableTest {
         properties.put("TableDelaySeconds", "0");
         properties.put("PlayerKeys1", "81,87,69,82");
         properties.put("PlayerKeys2", "85,73,79,80");
-        MockLogger logger = new MockLogger();
-        Config config = new Config(logger, properties);
+        logger = new MockLogger();
+        config = new Config(logger, properties);
         slotToCard = new Integer[config.tableSize];
         cardToSlot = new Integer[config.deckSize];
 
@@ -95,6 +103,62 @@ class TableTest {
         placeSomeCardsAndAssert();
     }
 
+    @Test
+    void setIndex_FollowsPlacedAndRemovedCards() {
+        Env env = new Env(logger, config, new MockUserInterface(), new UtilImpl(config));
+        table = new Table(env, slotToCard, cardToSlot);
+
+        table.placeCard(0, 0);
+        table.placeCard(1, 1);
+        assertFalse(table.anySet());
+        table.placeCard(2, 2);
+        assertEquals(1, table.countSets());
+        assertEquals(1, table.setsTouching(0).size());
+
+        table.removeCard(1);
+        assertFalse(table.anySet());
+        assertTrue(table.setsTouching(0).isEmpty());
+
+        table.placeCard(4, 3);
+        table.placeCard(8, 1);
+        assertEquals(1, table.countSets());
+        assertArrayEquals(new int[]{0, 1, 3}, table.setsTouching(3).get(0));
+        assertTrue(table.setsTouching(2).isEmpty());
+    }
+
+    @Test
+    void setIndex_CoversCardsPlacedBeforeConstruction() {
+        fillAllSlots(); // cards 0, 1, 2 and 3, with the set 0, 1, 2
+        Env env = new Env(logger, config, new MockUserInterface(), new UtilImpl(config));
+        table = new Table(env, slotToCard, cardToSlot);
+
+        assertEquals(0, table.emptySlots());
+        assertEquals(1, table.countSets());
+        assertEquals(1, table.setsTouching(0).size());
+        assertTrue(table.setsTouching(3).isEmpty());
+        assertEquals(3, (int) cardToSlot[3]);
+    }
+
+    @Test
+    void placeCards_RemoveCards_AppliesWholeBatch() {
+        Env env = new Env(logger, config, new MockUserInterface(), new UtilImpl(config));
+        table = new Table(env, slotToCard, cardToSlot);
+
+        table.placeCards(new int[]{0, 1, 2, 7}, new int[]{3, 0, 2, 1}, 3);
+        assertEquals(3, table.countCards());
+        assertEquals(1, table.emptySlots());
+        assertEquals(0, (int) slotToCard[3]);
+        assertEquals(2, (int) cardToSlot[2]);
+        assertNull(cardToSlot[7]);
+        assertEquals(1, table.countSets());
+
+        table.removeCards(new int[]{3, 2}, 2);
+        assertEquals(1, table.countCards());
+        assertEquals(3, table.emptySlots());
+        assertNull(cardToSlot[0]);
+        assertFalse(table.anySet());
+    }
+
     static class MockUserInterface implements UserInterface {
         @Override
         public void dispose() {}
@@ -103,6 +167,8 @@ class TableTest {
         @Override
         public void removeCard(int slot) {}
         @Override
+        public void setOpenSlots(int slots) {}
+        @Override
         public void setCountdown(long millies, boolean warn) {}
         @Override
         public void setElapsed(long millies) {}
@@ -138,11 +204,31 @@ class TableTest {
             return false;
         }
 
+        @Override
+        public long packCard(int card) {
+            return card;
+        }
+
+        @Override
+        public boolean testPackedSet(long[] packedCards) {
+            return false;
+        }
+
+        @Override
+        public int completeSet(int[] cards) {
+            return -1;
+        }
+
         @Override
         public List<int[]> findSets(List<Integer> deck, int count) {
             return null;
         }
 
+        @Override
+        public Stream<int[]> streamSets(List<Integer> deck) {
+            return Stream.empty();
+        }
+
         @Override
         public void spin() {}
     }
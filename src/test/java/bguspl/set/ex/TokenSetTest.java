@@ -0,0 +1,59 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenSetTest {
+
+    @Test
+    void addRemove_ReturnWhetherTheTokenChanged() {
+        TokenSet tokens = new TokenSet(12);
+
+        assertTrue(tokens.add(3));
+        assertFalse(tokens.add(3));
+        assertTrue(tokens.contains(3));
+        assertEquals(1, tokens.size());
+
+        assertTrue(tokens.remove(3));
+        assertFalse(tokens.remove(3));
+        assertFalse(tokens.contains(3));
+        assertEquals(0, tokens.size());
+    }
+
+    @Test
+    void sizeAndClear() {
+        TokenSet tokens = new TokenSet(12);
+        tokens.add(0);
+        tokens.add(5);
+        tokens.add(11);
+        assertEquals(3, tokens.size());
+
+        tokens.clear();
+        assertEquals(0, tokens.size());
+        assertFalse(tokens.contains(5));
+    }
+
+    @Test
+    void multiWord_SlotsBeyond64AreKeptApart() {
+        TokenSet tokens = new TokenSet(150);
+        int[] slots = {0, 63, 64, 127, 128, 149};
+        for (int slot : slots)
+            assertTrue(tokens.add(slot));
+        assertEquals(slots.length, tokens.size());
+
+        // slots 64 apart share a bit position in different words
+        assertTrue(tokens.remove(64));
+        assertTrue(tokens.contains(0));
+        assertTrue(tokens.contains(128));
+        assertFalse(tokens.contains(64));
+        assertEquals(slots.length - 1, tokens.size());
+
+        tokens.clear();
+        for (int slot : slots)
+            assertFalse(tokens.contains(slot));
+        assertEquals(0, tokens.size());
+    }
+}